@@ -0,0 +1,142 @@
+package com.sirweb.miro;
+
+import com.sirweb.miro.util.MiroFiles;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Keeps the css of compiled files on disk between runs.
+ * An entry stores the hash of the input file and of every file it imported or used,
+ * it is only reused as long as none of these files changed and it was written by the same version of miro.
+ * @author Tamino Laub
+ */
+public class BuildCache {
+    public static final String DEFAULT_DIRECTORY = ".miro-cache";
+    // Has to change whenever the compiler produces different css or the entries are stored differently
+    public static final String VERSION = "2";
+
+    private File directory;
+
+    public BuildCache (File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory () { return directory; }
+
+    /**
+     * @return the entry of the file from the last compilation or null if the file or one of its dependencies changed
+     */
+    public Entry lookup (File file, boolean minified) {
+        File entryFile = entryFile(file);
+        if (!entryFile.isFile())
+            return null;
+
+        Properties entry = new Properties();
+        try (Reader reader = new InputStreamReader(new FileInputStream(entryFile), StandardCharsets.UTF_8)) {
+            entry.load(reader);
+        } catch (IOException e) {
+            return null;
+        }
+
+        if (!VERSION.equals(entry.getProperty("version")))
+            return null;
+        if (!Boolean.toString(minified).equals(entry.getProperty("minified")))
+            return null;
+        if (!isUnchanged(MiroFiles.canonicalPath(file.getPath()), entry.getProperty("hash")))
+            return null;
+
+        int dependencyCount;
+        try {
+            dependencyCount = Integer.parseInt(entry.getProperty("dependencies", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        List<String> dependencies = new ArrayList<>();
+        for (int i = 0; i < dependencyCount; i++) {
+            String path = entry.getProperty("dependency." + i + ".path");
+            if (!isUnchanged(path, entry.getProperty("dependency." + i + ".hash")))
+                return null;
+            dependencies.add(path);
+        }
+
+        String css = entry.getProperty("css");
+        return css == null ? null : new Entry(css, dependencies);
+    }
+
+    /**
+     * Stores the css of a file together with the hashes of the content it was compiled from.
+     * The hashes have to be taken from the content that was read, a file that changed during the compilation
+     * would otherwise keep the css of its old content.
+     * @param hash hash of the content of the file that was compiled
+     * @param dependencies canonical paths of all files the file imported or used mapped to the hash of their content
+     */
+    public void store (File file, String hash, Map<String, String> dependencies, boolean minified, String css) throws IOException {
+        Properties entry = new Properties();
+        entry.setProperty("version", VERSION);
+        entry.setProperty("path", MiroFiles.canonicalPath(file.getPath()));
+        entry.setProperty("hash", hash);
+        entry.setProperty("minified", Boolean.toString(minified));
+        entry.setProperty("dependencies", Integer.toString(dependencies.size()));
+        int i = 0;
+        for (Map.Entry<String, String> dependency : dependencies.entrySet()) {
+            entry.setProperty("dependency." + i + ".path", dependency.getKey());
+            entry.setProperty("dependency." + i + ".hash", dependency.getValue());
+            i++;
+        }
+        entry.setProperty("css", css);
+
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Cannot create cache directory " + directory.getPath());
+
+        // Written to a temporary file first, so a parallel lookup never reads a half written entry
+        File entryFile = entryFile(file);
+        File tmpFile = File.createTempFile(entryFile.getName(), ".tmp", directory);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8)) {
+            entry.store(writer, null);
+        }
+        if (!tmpFile.renameTo(entryFile)) {
+            entryFile.delete();
+            if (!tmpFile.renameTo(entryFile)) {
+                tmpFile.delete();
+                throw new IOException("Cannot write cache entry " + entryFile.getPath());
+            }
+        }
+    }
+
+    private File entryFile (File file) {
+        return new File(directory, MiroFiles.hash(MiroFiles.canonicalPath(file.getPath())) + ".properties");
+    }
+
+    private static boolean isUnchanged (String path, String hash) {
+        return path != null && hash != null && hash.equals(MiroFiles.hash(new File(path)));
+    }
+
+    public static class Entry {
+        private String css;
+        private List<String> dependencies;
+
+        private Entry (String css, List<String> dependencies) {
+            this.css = css;
+            this.dependencies = dependencies;
+        }
+
+        public String getCss () { return css; }
+
+        /**
+         * @return canonical paths of all files the cached file imported or used
+         */
+        public List<String> getDependencies () { return dependencies; }
+    }
+}
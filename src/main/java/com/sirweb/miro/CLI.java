@@ -1,13 +1,16 @@
 package com.sirweb.miro;
 
 import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.util.MiroFiles;
 import com.sirweb.miro.util.Reader;
 import org.apache.commons.cli.*;
 
 import java.awt.*;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.net.ConnectException;
 
 public class CLI {
 
@@ -17,10 +20,28 @@ public class CLI {
         options.addOption("out", true, "Sets the output filepath");
         options.addOption("h", "help", false, "Prints this help information");
         options.addOption("in", true, "Sets input filepath");
+        options.addOption("cache", true, "Sets the directory compiled files are cached in (default " + BuildCache.DEFAULT_DIRECTORY + "), if set the daemon also keeps its token there instead of " + MiroDaemon.DEFAULT_DIRECTORY.getPath());
+        options.addOption("nocache", false, "Compiles without reading or writing the cache");
+        options.addOption("w", "watch", false, "Compiles again whenever the input or a file it imports changes");
+        options.addOption("daemon", false, "Starts a daemon that compiles the files sent to it by -client");
+        options.addOption("client", false, "Lets a running daemon compile the input, a daemon started with -cache needs the same -cache");
+        options.addOption("stop", false, "Stops a running daemon");
+        options.addOption("stream", false, "Writes every top level block as soon as it is compiled, blocks with the same selector are not merged and css imports have to come first");
+        options.addOption("port", true, "Sets the port of the daemon (default " + MiroDaemon.DEFAULT_PORT + ")");
         CommandLineParser parser = new DefaultParser();
 
         String inFilePath = null;
         String outFilePath = null;
+        String cacheDirectory = BuildCache.DEFAULT_DIRECTORY;
+        // The daemon and its clients may run in different directories, the token is only kept in the cache directory if it was set
+        File tokenDirectory = MiroDaemon.DEFAULT_DIRECTORY;
+        boolean useCache = true;
+        boolean watch = false;
+        boolean daemon = false;
+        boolean client = false;
+        boolean stop = false;
+        boolean stream = false;
+        int port = MiroDaemon.DEFAULT_PORT;
 
         try {
             // parse the command line arguments
@@ -29,6 +50,17 @@ public class CLI {
                 HelpFormatter formatter = new HelpFormatter();
                 formatter.printHelp( "miro", options );
             }
+            daemon = line.hasOption("daemon");
+            client = line.hasOption("client");
+            stop = line.hasOption("stop");
+            stream = line.hasOption("stream");
+            if (line.hasOption("port")) {
+                try {
+                    port = Integer.parseInt(line.getOptionValue("port"));
+                } catch (NumberFormatException e) {
+                    System.err.println("-port requires a number");
+                }
+            }
             if (line.hasOption("in")) {
                 String pathString = line.getOptionValue("in");
                 if (pathString != null) {
@@ -37,7 +69,7 @@ public class CLI {
                 else
                     System.err.println("-in requires an argument");
             }
-            else {
+            else if (!daemon && !stop) {
                 System.err.println("Required parameter in not set");
             }
             if (line.hasOption("out")) {
@@ -49,19 +81,101 @@ public class CLI {
                 }else
                     System.err.println("-out requires an argument");
             }
-            else {
+            else if (!daemon && !stop) {
                 System.err.println("Required parameter out not set");
             }
+            if (line.hasOption("cache")) {
+                cacheDirectory = line.getOptionValue("cache");
+                tokenDirectory = new File(cacheDirectory).getAbsoluteFile();
+            }
+            if (line.hasOption("nocache"))
+                useCache = false;
+            if (line.hasOption("watch"))
+                watch = true;
         }
         catch( ParseException exp ) {
             // oops, something went wrong
             exp.printStackTrace();
         }
 
+        if (stop) {
+            try {
+                MiroDaemon.stop(port, tokenDirectory);
+            } catch (FileNotFoundException e) {
+                System.err.println(e.getMessage());
+            } catch (ConnectException e) {
+                System.err.println("No daemon is running on port " + port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        if (client) {
+            try {
+                String error = MiroDaemon.compile(port, tokenDirectory, new File(inFilePath), new File(outFilePath));
+                if (error != null)
+                    System.err.print(error);
+            } catch (FileNotFoundException e) {
+                System.err.println(e.getMessage());
+            } catch (ConnectException e) {
+                System.err.println("No daemon is running on port " + port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        if (stream) {
+            try {
+                new StreamingCompiler(false).compile(new File(inFilePath), new File(outFilePath));
+            } catch (MiroException e) {
+                e.print();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        MiroCompiler compiler = new MiroCompiler();
+        if (useCache)
+            compiler.setBuildCache(new BuildCache(new File(cacheDirectory)));
+
+        if (daemon) {
+            try {
+                MiroDaemon miroDaemon = new MiroDaemon(compiler, port, tokenDirectory);
+                System.out.println("Listening on port " + miroDaemon.getPort());
+                miroDaemon.serve();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        if (watch) {
+            MiroWatcher watcher = new MiroWatcher(compiler);
+            watcher.add(new File(inFilePath), new File(outFilePath));
+            try {
+                watcher.watch();
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+
+        MiroCompiler.Result result = compiler.compile(new File(inFilePath));
+        if (!result.isSuccess()) {
+            if (result.getError() instanceof MiroException)
+                ((MiroException) result.getError()).print();
+            else
+                result.getError().printStackTrace();
+            return;
+        }
+
         try {
-            Miro miro = new Miro(new File(inFilePath), new File(outFilePath));
-        } catch (MiroException e) {
-            e.print();
+            MiroFiles.write(new File(outFilePath), result.getCss());
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -6,37 +6,34 @@ import com.sirweb.miro.ast.miro.MiroStylesheet;
 import com.sirweb.miro.exceptions.MiroException;
 import com.sirweb.miro.export.CssExporter;
 import com.sirweb.miro.export.Exporter;
-import com.sirweb.miro.lexer.Tokenizer;
+import com.sirweb.miro.lexer.StreamingTokenizer;
 import com.sirweb.miro.parsing.Parser;
 import com.sirweb.miro.util.Reader;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 
 public class Miro {
     private MiroStylesheet stylesheet;
     public Miro (String content) throws MiroException {
 
-        Tokenizer tokenizer = new Tokenizer(content);
-        tokenizer.tokenize();
-        Parser parser = new Parser(tokenizer);
+        Parser parser = new Parser(new StreamingTokenizer(content));
         this.stylesheet = parser.parse();
     }
 
     public Miro (File file, File out) throws MiroException, IOException {
-        Tokenizer tokenizer = new Tokenizer(new Reader(file.getAbsolutePath()).read());
-        tokenizer.tokenize();
-        Parser parser = new Parser(tokenizer, file.getAbsolutePath());
+        Parser parser = new Parser(new StreamingTokenizer(new Reader(file.getAbsolutePath()).read()), file.getAbsolutePath());
         this.stylesheet = parser.parse();
 
         MiroToCssConverter converter = new MiroToCssConverter(stylesheet);
         CssStylesheet cssStylesheet = converter.convert();
         Exporter exporter = new CssExporter(cssStylesheet);
-        PrintStream ps = new PrintStream(out);
-        exporter.export(ps);
-        ps.close();
+        try (OutputStream os = new FileOutputStream(out)) {
+            exporter.export(os);
+        }
     }
 
     public String toCss () throws IOException {
@@ -0,0 +1,161 @@
+package com.sirweb.miro;
+
+import com.sirweb.miro.ast.converter.MiroToCssConverter;
+import com.sirweb.miro.ast.miro.MiroStylesheet;
+import com.sirweb.miro.export.CssExporter;
+import com.sirweb.miro.lexer.StreamingTokenizer;
+import com.sirweb.miro.parsing.ImportCache;
+import com.sirweb.miro.parsing.Parser;
+import com.sirweb.miro.util.MiroFiles;
+import com.sirweb.miro.util.Reader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Compiles several Miro files in parallel.
+ * Every file is compiled on its own, compilations only share the cache of imported files.
+ * @author Tamino Laub
+ */
+public class MiroCompiler {
+    private ExecutorService executor;
+    private ImportCache imports;
+    private BuildCache buildCache;
+    private boolean minified;
+
+    /**
+     * Compiles on the common ForkJoinPool
+     */
+    public MiroCompiler () {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor runs the compilations, e.g. a ForkJoinPool or a virtual thread executor.
+     *                 It is not shut down by the compiler.
+     */
+    public MiroCompiler (ExecutorService executor) {
+        this.executor = executor;
+        this.imports = new ImportCache();
+    }
+
+    public void setMinified (boolean minified) { this.minified = minified; }
+
+    /**
+     * @return the cache of imported files that is shared by all compilations of this compiler
+     */
+    public ImportCache getImportCache () { return imports; }
+
+    /**
+     * Sets the on-disk cache unchanged files are taken from, null disables it
+     */
+    public void setBuildCache (BuildCache buildCache) { this.buildCache = buildCache; }
+
+    /**
+     * Starts the compilation of a single file
+     */
+    public Future<Result> submit (final File file) {
+        return executor.submit(new Callable<Result>() {
+            @Override
+            public Result call() {
+                return compile(file);
+            }
+        });
+    }
+
+    /**
+     * Compiles all files and waits until every compilation has finished.
+     * @return the result for every file in the order of the given files
+     */
+    public Map<File, Result> compileAll (Collection<File> files) throws InterruptedException {
+        List<Future<Result>> futures = new ArrayList<>();
+        for (File file : files)
+            futures.add(submit(file));
+
+        Map<File, Result> results = new LinkedHashMap<>();
+        for (Future<Result> future : futures) {
+            try {
+                Result result = future.get();
+                results.put(result.getFile(), result);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Compiles a single file on the calling thread
+     */
+    public Result compile (File file) {
+        try {
+            if (buildCache != null) {
+                BuildCache.Entry entry = buildCache.lookup(file, minified);
+                if (entry != null)
+                    return new Result(file, entry.getCss(), entry.getDependencies(), null, true);
+            }
+
+            String path = file.getAbsolutePath();
+            Reader reader = new Reader(path);
+            // The hash of the content that is compiled, the file may already have changed when the css is stored
+            String hash = MiroFiles.hash(reader.bytes());
+            Parser parser = new Parser(new StreamingTokenizer(reader.read()), path);
+            parser.setImportCache(imports);
+            MiroStylesheet stylesheet = parser.parse();
+            String css = new CssExporter(new MiroToCssConverter(stylesheet).convert(), minified).export();
+
+            if (buildCache != null)
+                buildCache.store(file, hash, parser.getDependencyHashes(), minified, css);
+            return new Result(file, css, parser.getDependencies(), null, false);
+        } catch (Exception e) {
+            return new Result(file, null, Collections.<String>emptySet(), e, false);
+        }
+    }
+
+    /**
+     * The css of a compiled file or the error that stopped its compilation
+     */
+    public static class Result {
+        private File file;
+        private String css;
+        private Collection<String> dependencies;
+        private Exception error;
+        private boolean cached;
+
+        private Result (File file, String css, Collection<String> dependencies, Exception error, boolean cached) {
+            this.file = file;
+            this.css = css;
+            this.dependencies = dependencies;
+            this.error = error;
+            this.cached = cached;
+        }
+
+        public File getFile () { return file; }
+
+        public boolean isSuccess () { return error == null; }
+
+        public String getCss () { return css; }
+
+        /**
+         * @return canonical paths of all files the file imported or used
+         */
+        public Collection<String> getDependencies () { return dependencies; }
+
+        public Exception getError () { return error; }
+
+        /**
+         * @return true if the css was taken from the build cache without compiling the file
+         */
+        public boolean isCached () { return cached; }
+    }
+}
@@ -0,0 +1,271 @@
+package com.sirweb.miro;
+
+import com.sirweb.miro.util.MiroFiles;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a compiler running and compiles files on request, so a build does not have to start a new JVM for every file.
+ * The daemon only listens on the loopback interface. Every connection carries one request, a request is a list of lines:
+ * <pre>
+ * token
+ * compile
+ * /absolute/path/in.miro
+ * /absolute/path/out.css
+ * </pre>
+ * or the token followed by the single line <code>stop</code>. The answer is <code>ok</code> or <code>error</code> followed by the error message.
+ * <p>
+ * The token is a random secret the daemon writes to a file in its directory that only the owner can read,
+ * requests without it are rejected. Clients read the token from the same directory, {@link #DEFAULT_DIRECTORY} by default.
+ * Output files are only written into directories owned by the user of the daemon.
+ * @author Tamino Laub
+ */
+public class MiroDaemon {
+    public static final int DEFAULT_PORT = 7878;
+    // Shared by the daemon and clients started in other directories
+    public static final File DEFAULT_DIRECTORY = new File(System.getProperty("user.home"), ".miro");
+
+    private MiroCompiler compiler;
+    private ServerSocket serverSocket;
+    private ExecutorService connections;
+    private File tokenFile;
+    private String token;
+    private UserPrincipal owner;
+    private volatile boolean running;
+
+    /**
+     * @param directory the directory the token of the daemon is written to, e.g. {@link #DEFAULT_DIRECTORY}
+     */
+    public MiroDaemon (MiroCompiler compiler, int port, File directory) throws IOException {
+        this.compiler = compiler;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.connections = Executors.newCachedThreadPool();
+        try {
+            this.token = createToken();
+            this.tokenFile = tokenFile(directory, getPort());
+            writeToken(tokenFile, token);
+            this.owner = Files.getOwner(tokenFile.toPath());
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the port the daemon listens on
+     */
+    public int getPort () { return serverSocket.getLocalPort(); }
+
+    /**
+     * Handles requests until a stop request arrives or {@link #stop()} is called
+     */
+    public void serve () throws IOException {
+        running = true;
+        try {
+            while (running) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketException e) {
+                    // The server socket was closed by stop()
+                    break;
+                }
+                connections.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(socket);
+                    }
+                });
+            }
+        } finally {
+            stop();
+            connections.shutdown();
+        }
+    }
+
+    public void stop () {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        tokenFile.delete();
+    }
+
+    private void handle (Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            if (!isToken(in.readLine())) {
+                out.write("error\nInvalid token\n");
+                out.flush();
+                return;
+            }
+
+            String command = in.readLine();
+            if ("stop".equals(command)) {
+                out.write("ok\n");
+                out.flush();
+                stop();
+            }
+            else if ("compile".equals(command)) {
+                String inPath = in.readLine();
+                String outPath = in.readLine();
+                if (inPath == null || outPath == null)
+                    out.write("error\nIncomplete compile request\n");
+                else
+                    out.write(compile(new File(inPath), new File(outPath)));
+            }
+            else
+                out.write("error\nUnknown command " + command + "\n");
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean isToken (String line) {
+        // Compared in constant time, so the answer time does not tell how much of the token was right
+        return line != null && MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String compile (File in, File out) {
+        String rejected = checkOutput(out);
+        if (rejected != null)
+            return "error\n" + rejected + "\n";
+
+        MiroCompiler.Result result = compiler.compile(in);
+        if (!result.isSuccess())
+            return "error\n" + result.getError().getClass().getName() + ": " + result.getError().getMessage() + "\n";
+        try {
+            MiroFiles.write(out, result.getCss());
+        } catch (IOException e) {
+            return "error\n" + e.getMessage() + "\n";
+        }
+        return "ok\n";
+    }
+
+    /**
+     * @return why the daemon does not write to the file or null if it may write to it
+     */
+    private String checkOutput (File out) {
+        if (!out.isAbsolute())
+            return "Output path " + out.getPath() + " is not absolute";
+        Path path = out.toPath();
+        Path directory = path.getParent();
+        try {
+            if (directory == null || !Files.isDirectory(directory) || !owner.equals(Files.getOwner(directory)))
+                return "Output directory of " + out.getPath() + " is not owned by the user of the daemon";
+            if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)
+                    && (!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) || !owner.equals(Files.getOwner(path, LinkOption.NOFOLLOW_LINKS))))
+                return "Output file " + out.getPath() + " is not a regular file owned by the user of the daemon";
+        } catch (IOException e) {
+            return "Cannot check output file " + out.getPath();
+        }
+        return null;
+    }
+
+    /**
+     * Sends a compile request to a running daemon
+     * @param directory the directory the daemon was started with
+     * @return null if the file was compiled, the error message otherwise
+     * @throws FileNotFoundException if there is no token of a daemon on this port in the directory
+     */
+    public static String compile (int port, File directory, File in, File out) throws IOException {
+        return send(port, directory, "compile\n" + in.getAbsolutePath() + "\n" + out.getAbsolutePath() + "\n");
+    }
+
+    /**
+     * Asks a running daemon to stop
+     * @param directory the directory the daemon was started with
+     */
+    public static void stop (int port, File directory) throws IOException {
+        send(port, directory, "stop\n");
+    }
+
+    private static String send (int port, File directory, String request) throws IOException {
+        File tokenFile = tokenFile(directory, port);
+        String token;
+        try {
+            token = new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException("No token of a daemon on port " + port + " at " + tokenFile.getAbsolutePath()
+                    + ", the client needs the directory the daemon was started with");
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            out.write(token + "\n" + request);
+            out.flush();
+
+            String status = in.readLine();
+            if ("ok".equals(status))
+                return null;
+            StringBuilder message = new StringBuilder();
+            String line;
+            while ((line = in.readLine()) != null)
+                message.append(line).append("\n");
+            return message.length() == 0 ? "No answer from daemon" : message.toString();
+        }
+    }
+
+    private static File tokenFile (File directory, int port) {
+        return new File(directory, "daemon-" + port + ".token");
+    }
+
+    private static String createToken () {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder token = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+            token.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return token.toString();
+    }
+
+    private static void writeToken (File file, String token) throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Cannot create directory " + directory.getPath());
+
+        // A token left by a daemon that was not stopped is replaced, the file is created without access for others
+        Path path = file.toPath();
+        Files.deleteIfExists(path);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+        else {
+            Files.createFile(path);
+            if (!(file.setReadable(false, false) && file.setReadable(true, true)
+                    && file.setWritable(false, false) && file.setWritable(true, true)))
+                throw new IOException("Cannot restrict access to " + file.getPath());
+        }
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8)) {
+            writer.write(token);
+        }
+    }
+}
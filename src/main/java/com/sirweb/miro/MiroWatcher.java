@@ -0,0 +1,152 @@
+package com.sirweb.miro;
+
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.util.MiroFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles files again whenever they or one of the files they import or use change.
+ * Only the files affected by a change are compiled again, imported files stay cached by the compiler.
+ * @author Tamino Laub
+ */
+public class MiroWatcher {
+    // Editors often write a file in several steps, events that arrive within this time are handled together
+    private static final long SETTLE_MILLIS = 50;
+
+    private MiroCompiler compiler;
+    private Map<File, File> outputs;
+    private Map<File, Set<String>> dependencies;
+    private WatchService watchService;
+    private Map<WatchKey, Path> watchedDirectories;
+
+    public MiroWatcher (MiroCompiler compiler) {
+        this.compiler = compiler;
+        this.outputs = new LinkedHashMap<>();
+        this.dependencies = new HashMap<>();
+        this.watchedDirectories = new HashMap<>();
+    }
+
+    /**
+     * Adds a file that is compiled to the given output file
+     */
+    public void add (File in, File out) {
+        outputs.put(in, out);
+    }
+
+    /**
+     * Compiles all files and compiles them again on every change until the thread is interrupted
+     */
+    public void watch () throws IOException, InterruptedException {
+        watchService = FileSystems.getDefault().newWatchService();
+        try {
+            build(outputs.keySet());
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<String> changed = new HashSet<>();
+                boolean overflow = false;
+                do {
+                    Path directory = watchedDirectories.get(key);
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                            overflow = true;
+                        else if (directory != null)
+                            changed.add(MiroFiles.canonicalPath(directory.resolve((Path) event.context()).toString()));
+                    }
+                    if (!key.reset())
+                        watchedDirectories.remove(key);
+                } while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+                if (overflow)
+                    build(outputs.keySet());
+                else
+                    rebuild(changed);
+            }
+        } finally {
+            watchService.close();
+            watchService = null;
+            watchedDirectories.clear();
+        }
+    }
+
+    /**
+     * Compiles every file that is one of the changed files or depends on one of them
+     * @param changed canonical paths of the changed files
+     * @return the compiled files
+     */
+    public Collection<File> rebuild (Collection<String> changed) throws IOException {
+        Set<File> affected = new LinkedHashSet<>();
+        for (File in : outputs.keySet()) {
+            Set<String> files = dependencies.get(in);
+            for (String path : changed)
+                if (files == null || files.contains(path))
+                    affected.add(in);
+        }
+        if (!affected.isEmpty())
+            build(affected);
+        return affected;
+    }
+
+    /**
+     * Compiles the given files and writes their output
+     */
+    public void build (Collection<File> files) throws IOException {
+        Map<File, MiroCompiler.Result> results;
+        try {
+            results = compiler.compileAll(new ArrayList<>(files));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        for (MiroCompiler.Result result : results.values()) {
+            File in = result.getFile();
+            Set<String> watched = new HashSet<>(result.getDependencies());
+            watched.add(MiroFiles.canonicalPath(in.getPath()));
+            // A failed compilation may not know all of its dependencies yet, keep the ones that are known
+            if (!result.isSuccess() && dependencies.containsKey(in))
+                watched.addAll(dependencies.get(in));
+            dependencies.put(in, watched);
+            register(watched);
+
+            if (result.isSuccess()) {
+                MiroFiles.write(outputs.get(in), result.getCss());
+                System.out.println("Compiled " + in.getPath());
+            }
+            else if (result.getError() instanceof MiroException)
+                ((MiroException) result.getError()).print();
+            else
+                result.getError().printStackTrace();
+        }
+    }
+
+    private void register (Set<String> files) throws IOException {
+        if (watchService == null)
+            return;
+        for (String file : files) {
+            Path directory = new File(file).getParentFile().toPath();
+            if (watchedDirectories.containsValue(directory))
+                continue;
+            WatchKey key = directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirectories.put(key, directory);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.sirweb.miro;
+
+import com.sirweb.miro.ast.converter.MiroToCssConverter;
+import com.sirweb.miro.ast.css.CssImportRule;
+import com.sirweb.miro.ast.css.CssStylesheet;
+import com.sirweb.miro.ast.miro.MiroStylesheet;
+import com.sirweb.miro.exceptions.MiroConvertException;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.export.CssExporter;
+import com.sirweb.miro.lexer.StreamingTokenizer;
+import com.sirweb.miro.parsing.Parser;
+import com.sirweb.miro.util.Reader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compiles a file by converting and writing every top level block as soon as it is closed,
+ * so only the largest top level block is kept in memory instead of the whole stylesheet in all of its forms.
+ * <p>
+ * Blocks with the same selector are only merged within a top level block. Two top level blocks with the same
+ * selector are written as two css blocks, which applies the same styles but makes the output larger
+ * than the output of {@link MiroCompiler}.
+ * <p>
+ * Css import rules cannot be moved to the top of the output either, browsers ignore an @import that follows other rules.
+ * An @import is only allowed in top level blocks up to the first one that contains rules,
+ * a later one stops the compilation with a {@link MiroConvertException}.
+ * @author Tamino Laub
+ */
+public class StreamingCompiler {
+    private boolean minified;
+
+    public StreamingCompiler (boolean minified) {
+        this.minified = minified;
+    }
+
+    public void compile (File in, File out) throws MiroException, IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8))) {
+            compile(in, writer);
+        }
+    }
+
+    public void compile (File in, final Writer out) throws MiroException, IOException {
+        String path = in.getAbsolutePath();
+        Parser parser = new Parser(new StreamingTokenizer(new Reader(path).read()), path);
+        compile(parser, out);
+    }
+
+    public void compile (Parser parser, final Writer out) throws MiroException, IOException {
+        parser.parse(new Parser.BlockHandler() {
+            private boolean rulesWritten = false;
+
+            @Override
+            public void closed(MiroStylesheet stylesheet) throws MiroException, IOException {
+                CssStylesheet cssStylesheet = new MiroToCssConverter(stylesheet).convert();
+                if (rulesWritten)
+                    for (CssImportRule importRule : cssStylesheet.getImportRules())
+                        throw new MiroConvertException("@import " + importRule.getUrlContent() + " follows other rules, it has to be in the first blocks when compiling in streaming mode");
+                new CssExporter(cssStylesheet, minified).export(out);
+                if (!cssStylesheet.getElements().isEmpty())
+                    rulesWritten = true;
+            }
+        });
+    }
+}
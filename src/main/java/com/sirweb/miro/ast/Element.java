@@ -20,6 +20,8 @@ public abstract class Element {
 
     public Iterable<Block> getBlocks () { return blocks; }
     public void addBlock (Block block) { blocks.add(block); }
+    public boolean hasBlocks () { return !blocks.isEmpty(); }
+    public void clearBlocks () { blocks.clear(); }
 
     public SymbolTable symbolTable() {
         return symbolTable;
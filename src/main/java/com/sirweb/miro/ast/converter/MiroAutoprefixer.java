@@ -1,109 +1,55 @@
 package com.sirweb.miro.ast.converter;
 
-import com.sirweb.miro.ast.Block;
-import com.sirweb.miro.ast.Element;
-import com.sirweb.miro.ast.Statement;
-import com.sirweb.miro.ast.miro.MiroBlock;
-import com.sirweb.miro.ast.miro.MiroStatement;
-import com.sirweb.miro.ast.miro.MiroStylesheet;
-import com.sirweb.miro.parsing.values.miro.MiroValue;
-
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
+/**
+ * The vendor prefixed properties that are added next to a property.
+ * The table is built once, the prefixed names are precomputed so prefixing a statement only needs one lookup.
+ * @author Tamino Laub
+ */
 public class MiroAutoprefixer {
-    private MiroStylesheet stylesheet;
-    private Map<String, List<String>> prefixedProperties;
-
-    public MiroAutoprefixer (MiroStylesheet stylesheet) {
-        this.stylesheet = stylesheet;
-
-        prefixedProperties = new HashMap<>();
-
-        prefixedProperties.put("transition", new ArrayList<>());
-        prefixedProperties.get("transition").add("moz");
-        prefixedProperties.get("transition").add("webkit");
-
-        prefixedProperties.put("background-clip", new ArrayList<>());
-        prefixedProperties.get("background-clip").add("webkit");
-
-        prefixedProperties.put("box-reflection", new ArrayList<>());
-        prefixedProperties.get("box-reflection").add("webkit");
-
-        prefixedProperties.put("filter", new ArrayList<>());
-        prefixedProperties.get("filter").add("webkit");
-
-        prefixedProperties.put("font-feature-settings", new ArrayList<>());
-        prefixedProperties.get("font-feature-settings").add("webkit");
-        prefixedProperties.get("font-feature-settings").add("moz");
-
-        prefixedProperties.put("word-break", new ArrayList<>());
-        prefixedProperties.get("word-break").add("ms");
-
-        prefixedProperties.put("hyphens", new ArrayList<>());
-        prefixedProperties.get("hyphens").add("webkit");
-        prefixedProperties.get("hyphens").add("moz");
-        prefixedProperties.get("hyphens").add("ms");
-
-        prefixedProperties.put("mask-image", new ArrayList<>());
-        prefixedProperties.get("mask-image").add("webkit");
-
-        prefixedProperties.put("column-count", new ArrayList<>());
-        prefixedProperties.get("column-count").add("webkit");
-        prefixedProperties.get("column-count").add("moz");
-
-        prefixedProperties.put("column-gap", new ArrayList<>());
-        prefixedProperties.get("column-gap").add("webkit");
-        prefixedProperties.get("column-gap").add("moz");
-
-        prefixedProperties.put("column-rule", new ArrayList<>());
-        prefixedProperties.get("column-rule").add("webkit");
-        prefixedProperties.get("column-rule").add("moz");
-
-        prefixedProperties.put("object-fit", new ArrayList<>());
-        prefixedProperties.get("object-fit").add("o");
-
-        prefixedProperties.put("flow-from", new ArrayList<>());
-        prefixedProperties.get("flow-from").add("webkit");
-        prefixedProperties.get("flow-from").add("ms");
-
-        prefixedProperties.put("flow-into", new ArrayList<>());
-        prefixedProperties.get("flow-into").add("webkit");
-        prefixedProperties.get("flow-into").add("ms");
-
-        prefixedProperties.put("transform", new ArrayList<>());
-        prefixedProperties.get("transform").add("webkit");
-        prefixedProperties.get("transform").add("ms");
-
-        prefixedProperties.put("appearance", new ArrayList<>());
-        prefixedProperties.get("appearance").add("webkit");
-        prefixedProperties.get("appearance").add("moz");
-
-
-    }
-
-    public void prefix () {
-        for (Element element : stylesheet.getBlocks())
-            prefixElement(element);
+    private static final String[] NONE = new String[0];
+    private static final Map<String, String[]> PREFIXED_PROPERTIES;
+
+    static {
+        Map<String, String[]> table = new HashMap<>();
+
+        add(table, "transition", "moz", "webkit");
+        add(table, "background-clip", "webkit");
+        add(table, "box-reflection", "webkit");
+        add(table, "filter", "webkit");
+        add(table, "font-feature-settings", "webkit", "moz");
+        add(table, "word-break", "ms");
+        add(table, "hyphens", "webkit", "moz", "ms");
+        add(table, "mask-image", "webkit");
+        add(table, "column-count", "webkit", "moz");
+        add(table, "column-gap", "webkit", "moz");
+        add(table, "column-rule", "webkit", "moz");
+        add(table, "object-fit", "o");
+        add(table, "flow-from", "webkit", "ms");
+        add(table, "flow-into", "webkit", "ms");
+        add(table, "transform", "webkit", "ms");
+        add(table, "appearance", "webkit", "moz");
+
+        PREFIXED_PROPERTIES = Collections.unmodifiableMap(table);
     }
 
-    private void prefixElement (Element element) {
-        List<MiroStatement> newStatements = new ArrayList<>();
-        for (Statement statement : element.getStatements()) {
-            if (prefixedProperties.containsKey(statement.getProperty())) {
-                for (String prefix : prefixedProperties.get(statement.getProperty()))
-                    newStatements.add(new MiroStatement("-"+prefix+"-"+statement.getProperty(), (MiroValue) statement.getValue()));
-            }
-        }
+    private MiroAutoprefixer () {}
 
-        for (Statement statement : newStatements)
-            element.addStatement(statement);
-
-        for (Element elem : element.getBlocks())
-            prefixElement(elem);
+    private static void add (Map<String, String[]> table, String property, String... prefixes) {
+        String[] prefixed = new String[prefixes.length];
+        for (int i = 0; i < prefixes.length; i++)
+            prefixed[i] = "-" + prefixes[i] + "-" + property;
+        table.put(property, prefixed);
     }
 
-
+    /**
+     * @return the prefixed names of the property, the array must not be changed
+     */
+    public static String[] prefixedProperties (String property) {
+        String[] prefixed = PREFIXED_PROPERTIES.get(property);
+        return prefixed == null ? NONE : prefixed;
+    }
 }
@@ -11,14 +11,19 @@ import com.sirweb.miro.ast.miro.MiroStylesheet;
 public class MiroToCssConverter {
     private MiroStylesheet stylesheet;
     private CssMediaQuery currentMediaQuery = null;
+    private boolean deduplicate = false;
     public MiroToCssConverter(MiroStylesheet stylesheet) {
         this.stylesheet = stylesheet;
     }
 
+    /**
+     * Keeps only the statement that applies for every property of a block, e.g. after blocks with the same header were merged
+     */
+    public void setDeduplicate (boolean deduplicate) { this.deduplicate = deduplicate; }
+
 
     public CssStylesheet convert() {
         MiroStylesheet stylesheet = this.stylesheet;
-        new MiroAutoprefixer(stylesheet).prefix();
 
         CssStylesheet cssStylesheet = new CssStylesheet();
 
@@ -68,10 +73,9 @@ public class MiroToCssConverter {
         header = header.trim();
 
 
-        CssBlock cssBlock = cssStylesheet.hasBlock(header) ?
-                (currentMediaQuery == null) ? ((CssBlock) cssStylesheet.getElement(header))
-                : new CssBlock(header)
-                : new CssBlock(header);
+        // Blocks outside of media queries with the same header are merged
+        CssElement existing = currentMediaQuery == null ? cssStylesheet.getElement(header) : null;
+        CssBlock cssBlock = existing instanceof CssBlock ? (CssBlock) existing : new CssBlock(header, deduplicate);
 
         for (ImportRule importRule : block.getImportRules())
             cssStylesheet.addImportRule(new CssImportRule(importRule.getUrlValue().toString()));
@@ -79,8 +83,13 @@ public class MiroToCssConverter {
         for (Statement statement : block.getStatements())
             cssBlock.addStatement(new CssStatement(statement.getProperty(), statement.getValue().toString(), statement.isImportant()));
 
+        // Prefixed statements follow the statements of the block
+        for (Statement statement : block.getStatements())
+            for (String prefixed : MiroAutoprefixer.prefixedProperties(statement.getProperty()))
+                cssBlock.addStatement(new CssStatement(prefixed, statement.getValue().toString(), statement.isImportant()));
+
         if (currentMediaQuery == null) {
-            if (!cssStylesheet.hasBlock(cssBlock.getHeader()))
+            if (existing != cssBlock)
                 cssStylesheet.addElement(cssBlock);
         }
         else
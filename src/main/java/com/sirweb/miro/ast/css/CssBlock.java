@@ -2,34 +2,75 @@ package com.sirweb.miro.ast.css;
 
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CssBlock implements CssElement {
     private String header;
     private List<CssStatement> statements;
+    // The statement that applies for every property, in deduplicating blocks it also keeps the order of the statements
+    private Map<String, CssStatement> index;
+    private boolean deduplicate;
+    // Unmodifiable view returned by getStatements, a deduplicating block builds it again after a statement was added
+    private List<CssStatement> view;
 
     public CssBlock(String header) {
-        this.header = header;
-        this.statements = new ArrayList<>();
+        this(header, false);
+    }
 
+    /**
+     * @param deduplicate keep only the statement that applies for every property instead of all statements,
+     *                    this also drops fallbacks like display: -webkit-box; display: flex
+     */
+    public CssBlock(String header, boolean deduplicate) {
+        this.header = header;
+        this.deduplicate = deduplicate;
+        this.statements = deduplicate ? null : new ArrayList<CssStatement>();
+        this.index = deduplicate ? new LinkedHashMap<String, CssStatement>() : new HashMap<String, CssStatement>();
+        this.view = deduplicate ? null : Collections.unmodifiableList(statements);
     }
 
     public String getHeader () { return header; }
 
-    public void addStatement (CssStatement statement) { statements.add(statement); }
+    public boolean isDeduplicating () { return deduplicate; }
+
+    public void addStatement (CssStatement statement) {
+        CssStatement current = index.get(statement.getProperty());
+        // An important statement is not overridden by a later one that is not important
+        boolean applies = current == null || !current.isImportant() || statement.isImportant();
+
+        if (deduplicate) {
+            if (applies) {
+                // Moved to the end, the statement may override a shorthand property declared in between
+                index.remove(statement.getProperty());
+                index.put(statement.getProperty(), statement);
+                view = null;
+            }
+        }
+        else {
+            statements.add(statement);
+            if (applies)
+                index.put(statement.getProperty(), statement);
+        }
+    }
 
     public boolean hasStatement (String property) {
-        return getStatement(property) != null;
+        return index.containsKey(property);
     }
 
+    /**
+     * @return the statement that applies for the property, i.e. the last important one or the last one if none is important
+     */
     public CssStatement getStatement (String property) {
-        for (CssStatement statement : statements)
-            if (statement.getProperty().equals(property))
-                return statement;
-        return null;
+        return index.get(property);
     }
 
     public List<CssStatement> getStatements() {
-        return statements;
+        if (view == null)
+            view = Collections.unmodifiableList(new ArrayList<>(index.values()));
+        return view;
     }
 }
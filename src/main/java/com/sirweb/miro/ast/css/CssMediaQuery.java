@@ -1,28 +1,34 @@
 package com.sirweb.miro.ast.css;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CssMediaQuery implements CssElement {
 
     private String header;
     private List<CssBlock> blocks;
+    // First block for every header
+    private Map<String, CssBlock> index;
 
     public CssMediaQuery (String header) {
         this.header = header;
         blocks = new ArrayList<>();
+        index = new HashMap<>();
     }
 
-    public void addBlock(CssBlock block) { blocks.add(block); }
+    public void addBlock(CssBlock block) {
+        blocks.add(block);
+        if (!index.containsKey(block.getHeader()))
+            index.put(block.getHeader(), block);
+    }
 
     public CssBlock getBlock(String header) {
-        for (CssBlock block : blocks)
-            if (block.getHeader().equals(header))
-                return block;
-        return null;
+        return index.get(header);
     }
 
-    public boolean hasBlock(String header) { return getBlock(header) != null; }
+    public boolean hasBlock(String header) { return index.containsKey(header); }
 
     @Override
     public String getHeader() {
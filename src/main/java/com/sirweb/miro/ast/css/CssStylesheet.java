@@ -1,32 +1,37 @@
 package com.sirweb.miro.ast.css;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CssStylesheet {
     private List<CssElement> elements;
+    // First element for every header, elements keeps the output order and may contain several media queries with the same header
+    private Map<String, CssElement> index;
     private List<CssImportRule> importRules;
 
     public CssStylesheet () {
         this.elements = new ArrayList<>();
+        this.index = new HashMap<>();
         this.importRules = new ArrayList<>();
     }
 
-    public List<CssElement> getElements () { return elements; }
+    public List<CssElement> getElements () { return Collections.unmodifiableList(elements); }
 
     public boolean hasBlock (String header) {
-        return getElement(header) != null;
+        return index.containsKey(header);
     }
 
     public CssElement getElement (String header) {
-        for (CssElement element : elements)
-            if (element.getHeader().equals(header))
-                return element;
-        return null;
+        return index.get(header);
     }
 
     public void addElement(CssElement cssElement) {
         elements.add(cssElement);
+        if (!index.containsKey(cssElement.getHeader()))
+            index.put(cssElement.getHeader(), cssElement);
     }
 
     public void addImportRule (CssImportRule importRule) { this.importRules.add(importRule); }
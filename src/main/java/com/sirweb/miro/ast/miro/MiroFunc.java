@@ -1,6 +1,7 @@
 package com.sirweb.miro.ast.miro;
 
-import com.sirweb.miro.lexer.Token;
+import com.sirweb.miro.lexer.TokenBuffer;
+import com.sirweb.miro.parsing.template.Template;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -8,25 +9,33 @@ import java.util.List;
 public class MiroFunc {
 
     private String name;
-    private List<Token> content;
+    private TokenBuffer content;
+    private Template template;
 
     private List<MiroFuncParameter> parameters;
 
     public MiroFunc(String name) {
         this.name = name;
         this.parameters = new ArrayList<>();
-        content = new ArrayList<>();
+        content = new TokenBuffer("");
     }
 
     public String getName () { return name; }
 
     public void addParameter (MiroFuncParameter parameter) { parameters.add(parameter); }
 
-    public void addContent (Token token) { content.add(token); }
+    public void setContent (TokenBuffer content) { this.content = content; }
 
     public MiroFuncParameter getParameter (int i) { return parameters.get(i); }
 
-    public List<Token> getContent () { return content; }
+    public TokenBuffer getContent () { return content; }
+
+    /**
+     * @return the parsed content or null if it has not been parsed
+     */
+    public Template getTemplate () { return template; }
+
+    public void setTemplate (Template template) { this.template = template; }
 
     public Iterable<MiroFuncParameter> getParameters () { return parameters; }
 
@@ -1,6 +1,7 @@
 package com.sirweb.miro.ast.miro;
 
-import com.sirweb.miro.lexer.Token;
+import com.sirweb.miro.lexer.TokenBuffer;
+import com.sirweb.miro.parsing.template.Template;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -8,12 +9,13 @@ import java.util.List;
 public class MiroMixin {
      private List<MiroMixinParameter> parameters;
      private String name;
-     private List<Token> content;
+     private TokenBuffer content;
+     private Template template;
 
      public MiroMixin (String name) {
          this.name = name;
          this.parameters = new ArrayList<>();
-         content = new ArrayList<>();
+         content = new TokenBuffer("");
      }
 
      public String getName () { return name; }
@@ -33,9 +35,16 @@ public class MiroMixin {
 
      public void addParameter (MiroMixinParameter parameter) { parameters.add(parameter); }
 
-     public List<Token> getContent () { return content; }
+     public TokenBuffer getContent () { return content; }
 
-     public void addContent (Token tok) { content.add(tok); }
+     public void setContent (TokenBuffer content) { this.content = content; }
+
+     /**
+      * @return the parsed content or null if it has not been parsed
+      */
+     public Template getTemplate () { return template; }
+
+     public void setTemplate (Template template) { this.template = template; }
 
      public int getParameterCount () { return parameters.size(); }
 
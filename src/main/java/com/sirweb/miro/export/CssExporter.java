@@ -3,10 +3,21 @@ package com.sirweb.miro.export;
 import com.sirweb.miro.ast.css.*;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Writes a css stylesheet piece by piece into a single StringBuilder or Writer,
+ * streams are wrapped in one buffered Writer with the configured charset.
+ * @author Tamino Laub
+ */
 public class CssExporter implements Exporter {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
     private CssStylesheet stylesheet;
     private boolean minified = false;
+    private Charset charset = StandardCharsets.UTF_8;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
 
     public CssExporter (CssStylesheet stylesheet, boolean minified) {
         this.stylesheet = stylesheet;
@@ -17,46 +28,67 @@ public class CssExporter implements Exporter {
         this(stylesheet, false);
     }
 
+    /**
+     * Sets the charset used when exporting to an OutputStream, UTF-8 by default
+     */
+    public void setCharset (Charset charset) { this.charset = charset; }
+
+    /**
+     * Sets the buffer size used when exporting to an OutputStream
+     */
+    public void setBufferSize (int bufferSize) {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("Buffer size must be positive");
+        this.bufferSize = bufferSize;
+    }
+
     public String export () throws IOException {
-        ByteArrayOutputStream s = new ByteArrayOutputStream();
-        export(s);
-        return s.toString();
+        StringBuilder sb = new StringBuilder();
+        export(sb);
+        return sb.toString();
     }
 
     public void export (OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset), bufferSize);
+        export(writer);
+        // Only flushed, the stream belongs to the caller
+        writer.flush();
+    }
+
+    public void export (Writer out) throws IOException {
+        export((Appendable) out);
+    }
+
+    private void export (Appendable out) throws IOException {
         for (CssImportRule cssImportRule : stylesheet.getImportRules())
-            out.write(("@import " + cssImportRule.getUrlContent() + ";").getBytes());
+            out.append("@import ").append(cssImportRule.getUrlContent()).append(';');
 
         for (CssElement element : stylesheet.getElements()) {
 
             if (element instanceof CssMediaQuery) {
-                if (minified)
-                    out.write(new String (element.getHeader() + "{").getBytes());
-                else
-                    out.write(new String (element.getHeader() + " {\n").getBytes());
+                out.append(element.getHeader()).append(minified ? "{" : " {\n");
 
                 for (CssBlock block : ((CssMediaQuery) element).getBlocks())
                     exportBlock(out, block);
 
-                out.write(new String ("}"+(minified ? "":"\n\n")).getBytes());
+                out.append(minified ? "}" : "}\n\n");
             }
             else
                 exportBlock(out, (CssBlock) element);
         }
     }
 
-    private void exportBlock (OutputStream out, CssBlock block) throws IOException {
-
-        if (minified)
-            out.write(new String (block.getHeader() + "{").getBytes());
-        else
-            out.write(new String (block.getHeader() + " {\n").getBytes());
+    private void exportBlock (Appendable out, CssBlock block) throws IOException {
+        out.append(block.getHeader()).append(minified ? "{" : " {\n");
 
-        for (CssStatement statement : block.getStatements())
-            if (minified)
-                out.write(new String(statement.getProperty() + ":" + statement.getValue() + (statement.isImportant() ? " !important" : "") +  ";").getBytes());
-            else
-                out.write(new String("    " + statement.getProperty() + ": " + statement.getValue() + (statement.isImportant() ? " !important" : "") + ";\n").getBytes());
-        out.write(new String ("}"+(minified ? "":"\n\n")).getBytes());
+        for (CssStatement statement : block.getStatements()) {
+            if (!minified)
+                out.append("    ");
+            out.append(statement.getProperty()).append(minified ? ":" : ": ").append(statement.getValue());
+            if (statement.isImportant())
+                out.append(" !important");
+            out.append(minified ? ";" : ";\n");
+        }
+        out.append(minified ? "}" : "}\n\n");
     }
 }
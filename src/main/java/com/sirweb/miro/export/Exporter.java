@@ -2,11 +2,13 @@ package com.sirweb.miro.export;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.io.Writer;
 
 public interface Exporter {
 
     String export () throws IOException;
 
     void export (OutputStream out) throws IOException;
+
+    void export (Writer out) throws IOException;
 }
@@ -0,0 +1,474 @@
+package com.sirweb.miro.lexer;
+
+import com.sirweb.miro.exceptions.MiroIndentationException;
+import com.sirweb.miro.exceptions.MiroTokenizerException;
+
+/**
+ * Single pass scanner for Miro source code.
+ * The lexer walks the source by index and decides on the first character of a token which
+ * rule applies, so the source is never copied or re-sliced while tokenizing.
+ * Every call to {@link #next()} returns the type of the next token; its bounds inside the source
+ * can be read with {@link #tokenStart()} and {@link #tokenEnd()}.
+ * @author Tamino Laub
+ */
+public class Lexer {
+
+    private static final String[] UNITS = {
+            "px", "pX", "Px", "PX",
+            "em", "EM", "eM", "Em",
+            "rem", "REM", "Rem", "REm", "rEM", "rEm", "reM",
+            "vw", "VW", "vW", "Vw",
+            "vh", "VH", "vH", "Vh",
+            "deg", "Deg", "DEg", "DEG", "dEG", "deG",
+            "s", "S",
+            "ms", "MS", "mS", "Ms",
+            "pt", "PT", "pT", "Pt",
+            "ex", "Ex", "eX", "EX",
+            "cH", "Ch", "CH",
+            "vmin", "vmax",
+            "cm", "CM", "Cm", "cM",
+            "in", "In", "iN", "IN",
+            "mm", "MM", "mM", "Mm",
+            "pc", "Pc", "pC", "PC"
+    };
+
+    private final CharSequence source;
+    private final int length;
+
+    private int position = 0;
+    private int level = 0;
+    private boolean atLineStart = false;
+    private int pendingDedents = 0;
+
+    private int tokenStart = 0;
+    private int tokenEnd = 0;
+
+    public Lexer (CharSequence source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    public CharSequence getSource () { return source; }
+
+    public int tokenStart () { return tokenStart; }
+
+    public int tokenEnd () { return tokenEnd; }
+
+    public TokenType next () throws MiroIndentationException, MiroTokenizerException {
+        if (pendingDedents > 0) {
+            pendingDedents--;
+            return emit(TokenType.MIRO_DEDENT_TOKEN, position, position);
+        }
+
+        if (atLineStart) {
+            atLineStart = false;
+            TokenType indentation = indentation();
+            if (indentation != null)
+                return indentation;
+        }
+
+        while (position < length) {
+            char c = source.charAt(position);
+
+            if (c == '\n') {
+                int start = position++;
+                // Indentation is only measured if there is anything left after the line break
+                atLineStart = position < length;
+                return emit(TokenType.NEWLINE_TOKEN, start, position);
+            }
+
+            if (c == '/') {
+                int commentEnd = commentEnd(position);
+                if (commentEnd != -1) {
+                    position = commentEnd;
+                    continue;
+                }
+            }
+
+            return scanToken(c);
+        }
+
+        tokenStart = tokenEnd = length;
+        return TokenType.EOF;
+    }
+
+    private TokenType indentation () throws MiroIndentationException {
+        int start = position;
+        while (position < length && source.charAt(position) == ' ')
+            position++;
+
+        int n = position - start;
+        if (n % 4 != 0)
+            throw new MiroIndentationException();
+        n /= 4;
+
+        if (n > level) {
+            level++;
+            return emit(TokenType.MIRO_INDENT_TOKEN, position, position);
+        }
+        if (n < level) {
+            pendingDedents = level - n - 1;
+            level = n;
+            return emit(TokenType.MIRO_DEDENT_TOKEN, position, position);
+        }
+        return null;
+    }
+
+    private TokenType scanToken (char c) throws MiroTokenizerException {
+        int start = position;
+        int end;
+
+        switch (c) {
+            case ' ':
+                return emit(TokenType.WHITESPACE_TOKEN, start, start + 1);
+            case '"':
+            case '\'':
+                end = stringEnd(start);
+                if (end == -1)
+                    throw new MiroTokenizerException("String opened but never closed");
+                return emit(TokenType.STRING_TOKEN, start, end);
+            case ',':
+                return emit(TokenType.COMMA_TOKEN, start, start + 1);
+            case '?':
+                end = identEnd(start + 1);
+                if (end != -1)
+                    return emit(TokenType.MIRO_CONDITIONAL_TOKEN, start, end);
+                break;
+            case '!':
+                end = identEnd(start + 1);
+                if (end != -1)
+                    return emit(TokenType.MIRO_DEBUG_TOKEN, start, end);
+                if (charAt(start + 1) == '=')
+                    return emit(TokenType.ARITHMETIC_TOKEN, start, start + 2);
+                return emit(TokenType.MIRO_EXCLAMATION_TOKEN, start, start + 1);
+            case '&':
+                if (charAt(start + 1) == '&')
+                    return emit(TokenType.ARITHMETIC_TOKEN, start, start + 2);
+                return emit(TokenType.MIRO_AND_TOKEN, start, start + 1);
+            case '|':
+                if (charAt(start + 1) == '|')
+                    return emit(TokenType.ARITHMETIC_TOKEN, start, start + 2);
+                if (charAt(start + 1) == '=')
+                    return emit(TokenType.DASH_MATCH_TOKEN, start, start + 2);
+                break;
+            case '$':
+                if (charAt(start + 1) == '{')
+                    return emit(TokenType.MIRO_INTERPOLATION_TOKEN, start, start + 2);
+                end = identEnd(start + 1);
+                if (end != -1) {
+                    if (charAt(end) == '(')
+                        return emit(TokenType.MIRO_MIXIN_TOKEN, start, end + 1);
+                    return emit(TokenType.MIRO_IDENT_TOKEN, start, end);
+                }
+                if (charAt(start + 1) == '=')
+                    return emit(TokenType.SUFFIX_MATCH_TOKEN, start, start + 2);
+                break;
+            case '<':
+            case '>':
+                if (charAt(start + 1) == '=')
+                    return emit(TokenType.ARITHMETIC_TOKEN, start, start + 2);
+                return emit(TokenType.ARITHMETIC_TOKEN, start, start + 1);
+            case '=':
+                if (charAt(start + 1) == '=')
+                    return emit(TokenType.EQUAL_EQUAL_TOKEN, start, start + 2);
+                return emit(TokenType.EQUAL_TOKEN, start, start + 1);
+            case '~':
+                if (charAt(start + 1) == '=')
+                    return emit(TokenType.INCLUDE_MATCH_TOKEN, start, start + 2);
+                return emit(TokenType.TILDE_TOKEN, start, start + 1);
+            case '^':
+                if (charAt(start + 1) == '=')
+                    return emit(TokenType.PREFIX_MATCH_TOKEN, start, start + 2);
+                break;
+            case '*':
+                if (charAt(start + 1) == '=')
+                    return emit(TokenType.SUBSTRING_MATCH_TOKEN, start, start + 2);
+                return emit(TokenType.ARITHMETIC_TOKEN, start, start + 1);
+            case '/':
+                return emit(TokenType.ARITHMETIC_TOKEN, start, start + 1);
+            case '@':
+                end = identEnd(start + 1);
+                if (end != -1)
+                    return emit(TokenType.AT_KEYWORD_TOKEN, start, end);
+                break;
+            case '#':
+                end = hashEnd(start + 1);
+                if (end != -1)
+                    return emit(TokenType.HASH_TOKEN, start, end);
+                break;
+            case '(':
+                return emit(TokenType.O_R_TOKEN, start, start + 1);
+            case ')':
+                return emit(TokenType.C_R_TOKEN, start, start + 1);
+            case '[':
+                return emit(TokenType.O_Q_TOKEN, start, start + 1);
+            case ']':
+                return emit(TokenType.C_Q_TOKEN, start, start + 1);
+            case '{':
+                return emit(TokenType.O_C_TOKEN, start, start + 1);
+            case '}':
+                return emit(TokenType.C_C_TOKEN, start, start + 1);
+            case ':':
+                return emit(TokenType.COLON_TOKEN, start, start + 1);
+            case ';':
+                return emit(TokenType.SEMICOLON_TOKEN, start, start + 1);
+            default:
+                TokenType type = scanWord(c, start);
+                if (type != null)
+                    return type;
+        }
+
+        throw new MiroTokenizerException("Could not recognize token");
+    }
+
+    /**
+     * Scans everything that may start with an ident or a number
+     * (idents, nested properties, functions, urls and numeric values).
+     */
+    private TokenType scanWord (char c, int start) {
+        int end;
+
+        if (c == 'u') {
+            end = urlEnd(start);
+            if (end != -1)
+                return emit(TokenType.URL_TOKEN, start, end);
+        }
+
+        int identEnd = identEnd(start);
+        if (identEnd != -1) {
+            end = nestPropEnd(start, identEnd);
+            if (end != -1)
+                return emit(TokenType.MIRO_NESTPROP_TOKEN, start, end);
+        }
+
+        if (c == '-' && charAt(start + 1) == '>')
+            return emit(TokenType.MIRO_ARROW_TOKEN, start, start + 2);
+
+        if (identEnd != -1 && charAt(identEnd) == '(')
+            return emit(TokenType.FUNCTION_TOKEN, start, identEnd + 1);
+
+        end = numberEnd(start);
+        if (end != -1) {
+            if (charAt(end) == '%')
+                return emit(TokenType.PERCENTAGE_TOKEN, start, end + 1);
+            for (String unit : UNITS)
+                if (regionMatches(end, unit))
+                    return emit(TokenType.DIMENSION_TOKEN, start, end + unit.length());
+            return emit(TokenType.NUMBER_TOKEN, start, end);
+        }
+
+        if (identEnd != -1)
+            return emit(TokenType.IDENT_TOKEN, start, identEnd);
+
+        if (c == '+' || c == '-')
+            return emit(TokenType.ARITHMETIC_TOKEN, start, start + 1);
+
+        return null;
+    }
+
+    private TokenType emit (TokenType type, int start, int end) {
+        tokenStart = start;
+        tokenEnd = end;
+        position = end;
+        return type;
+    }
+
+    private char charAt (int index) {
+        return index < length ? source.charAt(index) : '\0';
+    }
+
+    private boolean regionMatches (int index, String s) {
+        if (index + s.length() > length)
+            return false;
+        for (int i = 0; i < s.length(); i++)
+            if (source.charAt(index + i) != s.charAt(i))
+                return false;
+        return true;
+    }
+
+    private static boolean isLineTerminator (char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isDigit (char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter (char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isHexDigit (char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private boolean isEscape (int index) {
+        return charAt(index) == '\\' && isHexDigit(charAt(index + 1));
+    }
+
+    private int escapeEnd (int index) {
+        while (isEscape(index))
+            index += 2;
+        if (charAt(index) == ' ' || charAt(index) == '\t')
+            index++;
+        return index;
+    }
+
+    /**
+     * @return the end of the ident starting at index or -1 if there is none
+     */
+    private int identEnd (int index) {
+        if (charAt(index) == '-')
+            index++;
+
+        char c = charAt(index);
+        if (isEscape(index))
+            index = escapeEnd(index);
+        else if (isLetter(c) || c == '_' || c == '.')
+            index++;
+        else
+            return -1;
+
+        while (true) {
+            c = charAt(index);
+            if (isEscape(index))
+                index = escapeEnd(index);
+            else if (isLetter(c) || isDigit(c) || c == '_' || c == '-')
+                index++;
+            else
+                return index;
+        }
+    }
+
+    private int identHeadEnd (int index) {
+        if (charAt(index) == '-')
+            index++;
+        return isEscape(index) ? escapeEnd(index) : index + 1;
+    }
+
+    /**
+     * A nested property is an ident directly followed by two dashes. Because dashes are part of
+     * idents the last pair of dashes inside the ident ends the token.
+     */
+    private int nestPropEnd (int start, int identEnd) {
+        int headEnd = identHeadEnd(start);
+        for (int i = identEnd - 2; i >= headEnd; i--)
+            if (source.charAt(i) == '-' && source.charAt(i + 1) == '-')
+                return i + 2;
+        return -1;
+    }
+
+    private int hashEnd (int index) {
+        int start = index;
+        while (true) {
+            char c = charAt(index);
+            if (isEscape(index))
+                index = escapeEnd(index);
+            else if (isLetter(c) || isDigit(c) || c == '_' || c == '-')
+                index++;
+            else
+                break;
+        }
+        return index > start ? index : -1;
+    }
+
+    private int numberEnd (int index) {
+        if (charAt(index) == '+' || charAt(index) == '-')
+            index++;
+
+        int digitsStart = index;
+        while (isDigit(charAt(index)))
+            index++;
+
+        if (charAt(index) == '.' && isDigit(charAt(index + 1))) {
+            index += 2;
+            while (isDigit(charAt(index)))
+                index++;
+        }
+        else if (index == digitsStart)
+            return -1;
+
+        if (charAt(index) == 'e' || charAt(index) == 'E') {
+            int exponent = index + 1;
+            if (charAt(exponent) == '+' || charAt(exponent) == '-')
+                exponent++;
+            if (isDigit(charAt(exponent))) {
+                while (isDigit(charAt(exponent)))
+                    exponent++;
+                index = exponent;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Strings end at the first occurrence of their delimiter on the same line.
+     */
+    private int stringEnd (int start) {
+        char delimiter = source.charAt(start);
+        for (int i = start + 1; i < length; i++) {
+            char c = source.charAt(i);
+            if (c == delimiter)
+                return i + 1;
+            if (isLineTerminator(c))
+                return -1;
+        }
+        return -1;
+    }
+
+    private int urlEnd (int start) {
+        if (!regionMatches(start, "url("))
+            return -1;
+        int index = start + 4;
+        while (charAt(index) == ' ')
+            index++;
+
+        char delimiter = charAt(index);
+        if (delimiter != '"' && delimiter != '\'')
+            return -1;
+
+        for (int i = index + 1; i < length && !isLineTerminator(source.charAt(i)); i++) {
+            if (source.charAt(i) != delimiter)
+                continue;
+            int end = i + 1;
+            while (charAt(end) == ' ')
+                end++;
+            if (charAt(end) == ')')
+                return end + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the end of the comment starting at index or -1 if there is no comment.
+     * Line comments swallow the line break that ends them.
+     */
+    private int commentEnd (int index) {
+        char c = charAt(index + 1);
+        if (c == '*') {
+            for (int i = index + 2; i < length - 1; i++) {
+                char current = source.charAt(i);
+                if (current == '*' && source.charAt(i + 1) == '/')
+                    return i + 2;
+                if (current == '\u0085' || current == '\u2028' || current == '\u2029')
+                    return -1;
+            }
+            return -1;
+        }
+        if (c == '/') {
+            int lastFormFeed = -1;
+            int i = index + 2;
+            while (i < length && !isLineTerminator(source.charAt(i))) {
+                if (source.charAt(i) == '\f')
+                    lastFormFeed = i;
+                i++;
+            }
+            if (i < length && source.charAt(i) == '\n')
+                return i + 1;
+            if (i < length && source.charAt(i) == '\r')
+                return charAt(i + 1) == '\n' ? i + 2 : i + 1;
+            return lastFormFeed != -1 ? lastFormFeed + 1 : -1;
+        }
+        return -1;
+    }
+}
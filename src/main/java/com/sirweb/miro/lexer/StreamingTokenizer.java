@@ -0,0 +1,159 @@
+package com.sirweb.miro.lexer;
+
+import com.sirweb.miro.exceptions.MiroIndentationException;
+import com.sirweb.miro.exceptions.MiroTokenizerException;
+
+/**
+ * Token stream that lexes the source on demand.
+ * Only the tokens between the last few consumed ones and the furthest lookahead are kept
+ * in a ring buffer, so the parser can start before the whole source has been tokenized
+ * and the memory used for tokens does not grow with the size of the source.
+ * @author Tamino Laub
+ */
+public class StreamingTokenizer implements TokenStream {
+
+    // Number of consumed tokens that are kept for pushBack()
+    private static final int HISTORY = 16;
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final CharSequence source;
+    private final Lexer lexer;
+
+    private byte[] types = new byte[64];
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int mask = types.length - 1;
+
+    // Absolute token indices: oldest token still buffered, next token to read, end of lexed tokens
+    private long head = 0;
+    private long position = 0;
+    private long filled = 0;
+    private boolean exhausted = false;
+
+    // Tokens from this index on are kept until they are taken with sliceFrom (-1 if nothing is marked)
+    private long pinned = -1;
+
+    public StreamingTokenizer (CharSequence source) {
+        this.source = source;
+        this.lexer = new Lexer(source);
+    }
+
+    public Token getNext () throws MiroTokenizerException, MiroIndentationException {
+        if (!available(position))
+            return new Token("", TokenType.EOF);
+        int slot = (int) (position++ & mask);
+        return new Token(source, starts[slot], ends[slot], TYPES[types[slot]]);
+    }
+
+    public TokenType nextTokenType () throws MiroTokenizerException, MiroIndentationException {
+        return typeAt(position);
+    }
+
+    public String nextTokenString () throws MiroTokenizerException, MiroIndentationException {
+        if (!available(position))
+            return "";
+        int slot = (int) (position & mask);
+        return source.subSequence(starts[slot], ends[slot]).toString();
+    }
+
+    public TokenType getXNextTokenType (int x) throws MiroTokenizerException, MiroIndentationException {
+        return typeAt(position + x);
+    }
+
+    public boolean lineOpensBlock () throws MiroTokenizerException, MiroIndentationException {
+        long index = position;
+        TokenType type;
+        while ((type = typeAt(index)) != TokenType.NEWLINE_TOKEN) {
+            if (type == TokenType.EOF)
+                return false;
+            index++;
+        }
+        return typeAt(index + 1) == TokenType.MIRO_INDENT_TOKEN;
+    }
+
+    public TokenType getNextTokenTypeNotWhitespaceOrNewline () throws MiroTokenizerException, MiroIndentationException {
+        long index = position;
+        TokenType type;
+        while ((type = typeAt(index)) == TokenType.NEWLINE_TOKEN
+                || type == TokenType.WHITESPACE_TOKEN)
+            index++;
+        return type;
+    }
+
+    public void pushBack () {
+        if (position <= head)
+            throw new IllegalStateException("Cannot push back more than " + HISTORY + " tokens");
+        position--;
+    }
+
+    public int mark () {
+        if (pinned == -1 || pinned > position)
+            pinned = position;
+        return (int) position;
+    }
+
+    public TokenBuffer sliceFrom (int mark) {
+        if (mark < head || mark > position)
+            throw new IllegalStateException("Tokens since mark " + mark + " are no longer buffered");
+        TokenBuffer buffer = new TokenBuffer(source, Math.max(1, (int) (position - mark)));
+        for (long i = mark; i < position; i++) {
+            int slot = (int) (i & mask);
+            buffer.add(TYPES[types[slot]], starts[slot], ends[slot]);
+        }
+        pinned = -1;
+        return buffer;
+    }
+
+    private TokenType typeAt (long index) throws MiroTokenizerException, MiroIndentationException {
+        return available(index) ? TYPES[types[(int) (index & mask)]] : TokenType.EOF;
+    }
+
+    private boolean available (long index) throws MiroTokenizerException, MiroIndentationException {
+        while (index >= filled) {
+            if (exhausted)
+                return false;
+            lexNext();
+        }
+        return true;
+    }
+
+    private void lexNext () throws MiroTokenizerException, MiroIndentationException {
+        TokenType type = lexer.next();
+        if (type == TokenType.EOF) {
+            exhausted = true;
+            return;
+        }
+
+        if (filled - head == types.length) {
+            long keep = pinned == -1 ? position - HISTORY : Math.min(pinned, position - HISTORY);
+            if (head < keep)
+                head++;
+            else
+                grow();
+        }
+        int slot = (int) (filled & mask);
+        types[slot] = (byte) type.ordinal();
+        starts[slot] = lexer.tokenStart();
+        ends[slot] = lexer.tokenEnd();
+        filled++;
+    }
+
+    private void grow () {
+        int capacity = types.length * 2;
+        byte[] grownTypes = new byte[capacity];
+        int[] grownStarts = new int[capacity];
+        int[] grownEnds = new int[capacity];
+        for (long i = head; i < filled; i++) {
+            int from = (int) (i & mask);
+            int to = (int) (i & (capacity - 1));
+            grownTypes[to] = types[from];
+            grownStarts[to] = starts[from];
+            grownEnds[to] = ends[from];
+        }
+        types = grownTypes;
+        starts = grownStarts;
+        ends = grownEnds;
+        mask = capacity - 1;
+    }
+}
@@ -8,12 +8,28 @@ public class Token {
     private String token;
     private TokenType type;
 
+    // Bounds inside the source for tokens whose text has not been created yet
+    private CharSequence source;
+    private int start;
+    private int end;
+
     public Token(String token, TokenType type) {
         this.token = token;
         this.type = type;
     }
 
+    Token(CharSequence source, int start, int end, TokenType type) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+        this.type = type;
+    }
+
     public String getToken() {
+        if (token == null) {
+            token = source.subSequence(start, end).toString();
+            source = null;
+        }
         return token;
     }
 
@@ -25,4 +41,4 @@ public class Token {
         return "<"+getType()+"  -  '"+((getType() == TokenType.NEWLINE_TOKEN)? "\\n":getToken())+"'>";
 
     }
-}
\ No newline at end of file
+}
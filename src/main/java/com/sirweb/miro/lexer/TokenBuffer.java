@@ -0,0 +1,102 @@
+package com.sirweb.miro.lexer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact storage for a sequence of tokens.
+ * Instead of one object per token only the type ordinal and the bounds of the token inside
+ * the source are stored; the text of a token is created when it is asked for.
+ * Slices share the arrays of the buffer they were taken from.
+ * @author Tamino Laub
+ */
+public class TokenBuffer {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private CharSequence source;
+    private byte[] types;
+    private int[] starts;
+    private int[] ends;
+    private int offset;
+    private int size;
+    private boolean view;
+
+    public TokenBuffer (CharSequence source) {
+        this(source, 16);
+    }
+
+    public TokenBuffer (CharSequence source, int capacity) {
+        this.source = source;
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+    }
+
+    private TokenBuffer (TokenBuffer buffer, int from, int to) {
+        this.source = buffer.source;
+        this.types = buffer.types;
+        this.starts = buffer.starts;
+        this.ends = buffer.ends;
+        this.offset = buffer.offset + from;
+        this.size = to - from;
+        this.view = true;
+    }
+
+    /**
+     * Builds a buffer from already materialized tokens by concatenating their text into a new source.
+     */
+    public static TokenBuffer of (List<Token> tokens) {
+        StringBuilder source = new StringBuilder();
+        TokenBuffer buffer = new TokenBuffer(source, Math.max(tokens.size(), 1));
+        for (Token token : tokens) {
+            int start = source.length();
+            source.append(token.getToken());
+            buffer.add(token.getType(), start, source.length());
+        }
+        return buffer;
+    }
+
+    public void add (TokenType type, int start, int end) {
+        if (view || offset + size == types.length)
+            reallocate(Math.max(16, size * 2));
+        types[offset + size] = (byte) type.ordinal();
+        starts[offset + size] = start;
+        ends[offset + size] = end;
+        size++;
+    }
+
+    private void reallocate (int capacity) {
+        types = Arrays.copyOfRange(types, offset, offset + capacity);
+        starts = Arrays.copyOfRange(starts, offset, offset + capacity);
+        ends = Arrays.copyOfRange(ends, offset, offset + capacity);
+        offset = 0;
+        view = false;
+    }
+
+    public int size () { return size; }
+
+    public boolean isEmpty () { return size == 0; }
+
+    public CharSequence getSource () { return source; }
+
+    public TokenType type (int i) { return TYPES[types[offset + i]]; }
+
+    public int start (int i) { return starts[offset + i]; }
+
+    public int end (int i) { return ends[offset + i]; }
+
+    public String text (int i) {
+        return source.subSequence(start(i), end(i)).toString();
+    }
+
+    public Token token (int i) {
+        return new Token(source, start(i), end(i), type(i));
+    }
+
+    public TokenBuffer slice (int from, int to) {
+        if (from < 0 || to > size || from > to)
+            throw new IndexOutOfBoundsException("Slice " + from + " to " + to + " of " + size + " tokens");
+        return new TokenBuffer(this, from, to);
+    }
+}
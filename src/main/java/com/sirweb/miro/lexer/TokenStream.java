@@ -0,0 +1,36 @@
+package com.sirweb.miro.lexer;
+
+import com.sirweb.miro.exceptions.MiroIndentationException;
+import com.sirweb.miro.exceptions.MiroTokenizerException;
+
+/**
+ * A source of tokens the parser consumes from front to back.
+ * Implementations may produce the tokens lazily, so every lookahead can run into a lexing error.
+ * @author Tamino Laub
+ */
+public interface TokenStream {
+
+    Token getNext () throws MiroTokenizerException, MiroIndentationException;
+
+    TokenType nextTokenType () throws MiroTokenizerException, MiroIndentationException;
+
+    String nextTokenString () throws MiroTokenizerException, MiroIndentationException;
+
+    TokenType getXNextTokenType (int x) throws MiroTokenizerException, MiroIndentationException;
+
+    boolean lineOpensBlock () throws MiroTokenizerException, MiroIndentationException;
+
+    TokenType getNextTokenTypeNotWhitespaceOrNewline () throws MiroTokenizerException, MiroIndentationException;
+
+    void pushBack ();
+
+    /**
+     * Remembers the current position so the tokens read from here on can be taken with {@link #sliceFrom(int)}.
+     */
+    int mark ();
+
+    /**
+     * @return the tokens between the given mark and the current position
+     */
+    TokenBuffer sliceFrom (int mark);
+}
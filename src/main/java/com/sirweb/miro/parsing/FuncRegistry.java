@@ -0,0 +1,38 @@
+package com.sirweb.miro.parsing;
+
+import com.sirweb.miro.ast.miro.MiroFunc;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The functions value types were extended with (e.g. by @color) during one compilation.
+ * Every compilation has its own registry, so stylesheets compiled at the same time do not see each other's functions.
+ * @author Tamino Laub
+ */
+public class FuncRegistry {
+    private Map<Class<? extends MiroValue>, Map<String, MiroFunc>> funcs;
+
+    public FuncRegistry () {
+        funcs = new HashMap<>();
+    }
+
+    public void addFunc (Class<? extends MiroValue> type, MiroFunc func) {
+        Map<String, MiroFunc> typeFuncs = funcs.get(type);
+        if (typeFuncs == null) {
+            typeFuncs = new HashMap<>();
+            funcs.put(type, typeFuncs);
+        }
+        typeFuncs.put(func.getName(), func);
+    }
+
+    public MiroFunc getFunc (Class<? extends MiroValue> type, String name) {
+        Map<String, MiroFunc> typeFuncs = funcs.get(type);
+        return typeFuncs == null ? null : typeFuncs.get(name);
+    }
+
+    public boolean hasFunc (Class<? extends MiroValue> type, String name) {
+        return getFunc(type, name) != null;
+    }
+}
@@ -0,0 +1,99 @@
+package com.sirweb.miro.parsing;
+
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.exceptions.MiroImportException;
+import com.sirweb.miro.lexer.StreamingTokenizer;
+import com.sirweb.miro.parsing.template.Template;
+import com.sirweb.miro.util.MiroFiles;
+import com.sirweb.miro.util.Reader;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the parsed templates of imported and used files, so a file that is included
+ * by many stylesheets is only parsed once. Entries are keyed by the canonical path of the file
+ * and are parsed again when the content of the file changed.
+ * The least recently used entries are dropped when the cache is full.
+ * A cache can be shared by compilations running in parallel.
+ * @author Tamino Laub
+ */
+public class ImportCache {
+    private static final int DEFAULT_SIZE = 256;
+
+    private final Map<String, CachedTemplate> entries;
+
+    public ImportCache () {
+        this(DEFAULT_SIZE);
+    }
+
+    public ImportCache (final int maxEntries) {
+        entries = new LinkedHashMap<String, CachedTemplate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<String, CachedTemplate> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the parsed content of the file at the given path
+     */
+    public Template get (String filePath) throws MiroException {
+        return get(filePath, null);
+    }
+
+    /**
+     * @param read gets the canonical path of the file mapped to the hash of the content that was read, may be null
+     * @return the parsed content of the file at the given path
+     */
+    public Template get (String filePath, Map<String, String> read) throws MiroException {
+        Reader reader;
+        try {
+            reader = new Reader(filePath);
+        } catch (IOException e) {
+            throw new MiroImportException("Cannot read " + filePath);
+        }
+        String key = MiroFiles.canonicalPath(filePath);
+        String hash = MiroFiles.hash(reader.bytes());
+        if (read != null)
+            read.put(key, hash);
+
+        synchronized (entries) {
+            CachedTemplate entry = entries.get(key);
+            if (entry != null && entry.hash.equals(hash))
+                return entry.template;
+        }
+
+        // Parsed outside the lock, two threads may parse the same file at the same time but get equal templates
+        Template template = new Parser(new StreamingTokenizer(reader.read()), filePath).compile();
+
+        synchronized (entries) {
+            entries.put(key, new CachedTemplate(hash, template));
+        }
+        return template;
+    }
+
+    public int size () {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear () {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static class CachedTemplate {
+        private final String hash;
+        private final Template template;
+
+        private CachedTemplate (String hash, Template template) {
+            this.hash = hash;
+            this.template = template;
+        }
+    }
+}
@@ -1,37 +1,78 @@
 package com.sirweb.miro.parsing;
 
-import com.sirweb.miro.ast.Block;
-import com.sirweb.miro.ast.Element;
-import com.sirweb.miro.ast.ImportRule;
-import com.sirweb.miro.ast.Statement;
 import com.sirweb.miro.ast.miro.*;
 import com.sirweb.miro.exceptions.*;
 import com.sirweb.miro.lexer.Token;
+import com.sirweb.miro.lexer.TokenBuffer;
 import com.sirweb.miro.lexer.TokenType;
+import com.sirweb.miro.lexer.TokenStream;
 import com.sirweb.miro.lexer.Tokenizer;
-import com.sirweb.miro.parsing.values.Unit;
+import com.sirweb.miro.parsing.template.*;
 import com.sirweb.miro.parsing.values.miro.*;
-import com.sirweb.miro.util.Reader;
 
-import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
-
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses Miro code into templates (see {@link com.sirweb.miro.parsing.template}).
+ * {@link #parse()} executes every top level template as soon as it is parsed,
+ * nested content like mixin bodies is parsed once and executed whenever it is needed.
+ * @author Tamino Laub
+ */
 public class Parser {
-    private Tokenizer tokenizer;
+    private TokenStream tokenizer;
     private MiroStylesheet root;
-    private Stack<Element> stack;
+    private Context context;
+    private Context parent;
     private SymbolTable globals;
+    private FuncRegistry functions;
+    private ImportCache imports;
     private boolean inCollection = false;
     private String filePath = "";
 
-    public Parser (Tokenizer tokenizer) { this(tokenizer, "/"); }
+    public Parser (TokenStream tokenizer) { this(tokenizer, "/"); }
+
+    public Parser (TokenStream tokenizer, String filePath) {
+        this(tokenizer, filePath, new FuncRegistry());
+    }
 
-    public Parser (Tokenizer tokenizer, String filePath) {
+    /**
+     * Creates a parser that adds value functions to and calls them from the given registry.
+     */
+    public Parser (TokenStream tokenizer, String filePath, FuncRegistry functions) {
         this.tokenizer = tokenizer;
         this.globals = new SymbolTable();
         this.filePath = filePath;
+        this.functions = functions;
+        this.imports = new ImportCache();
+        this.context = createContext();
+    }
+
+    /**
+     * Creates a parser for content that is included at the current position of another context,
+     * symbols and mixins that are not defined by the content itself are resolved in that context.
+     */
+    public Parser (TokenStream tokenizer, String filePath, Context parent) {
+        this(tokenizer, filePath, parent.functions());
+        this.parent = parent;
+        this.imports = parent.imports();
+        this.context = createContext();
+    }
+
+    /**
+     * Sets the cache imported and used files are taken from, e.g. to share it between several compilations.
+     */
+    public void setImportCache (ImportCache imports) {
+        this.imports = imports;
+        if (parent == null)
+            this.context = createContext();
+    }
+
+    private Context createContext () {
+        return parent == null ? new Context(globals, filePath, functions, imports) : new Context(globals, parent, filePath);
     }
 
     public void setGlobal (String name, MiroValue value) {
@@ -43,30 +84,47 @@ public class Parser {
     }
 
     public SymbolTable getFullSymbolTable () {
-        SymbolTable sm = new SymbolTable();
+        return context.getFullSymbolTable();
+    }
 
-        Stack<Element> tmpStack = (Stack<Element>) stack.clone();
-        while (!tmpStack.empty()) {
-            Element element = tmpStack.pop();
+    /**
+     * @return the value functions defined while parsing
+     */
+    public FuncRegistry functions () {
+        return functions;
+    }
 
-            for (String key : element.symbolTable().getSymbols()) {
-                if (!sm.hasSymbol(key))
-                    sm.setSymbol(key, element.symbolTable().getSymbol(key));
-            }
-        }
-        return sm;
+    /**
+     * @return the canonical paths of all files imported or used while parsing
+     */
+    public Set<String> getDependencies () {
+        return context.dependencies().keySet();
     }
 
-    public Tokenizer tokenizer() {
+    /**
+     * @return the canonical paths of all files imported or used while parsing mapped to the hash of the content that was read
+     */
+    public Map<String, String> getDependencyHashes () {
+        return context.dependencies();
+    }
+
+    public TokenStream tokenizer() {
         return tokenizer;
     }
 
-    public void consumeWhitespaces () {
+    /**
+     * @return the context values parsed by this parser are evaluated in
+     */
+    public Context context () {
+        return context;
+    }
+
+    public void consumeWhitespaces () throws MiroTokenizerException, MiroIndentationException {
         while (tokenizer.nextTokenType() == TokenType.WHITESPACE_TOKEN)
             tokenizer.getNext();
     }
 
-    public void consumeBlock () {
+    public void consumeBlock () throws MiroTokenizerException, MiroIndentationException {
         int indents = 0;
         while (true) {
             if (tokenizer.nextTokenType() == TokenType.MIRO_INDENT_TOKEN)
@@ -83,12 +141,12 @@ public class Parser {
         }
     }
 
-    public void consumeNewlines () {
+    public void consumeNewlines () throws MiroTokenizerException, MiroIndentationException {
         while (tokenizer.nextTokenType() == TokenType.NEWLINE_TOKEN)
             tokenizer.getNext();
     }
 
-    public void consumeNewlinesAndWhitespaces () {
+    public void consumeNewlinesAndWhitespaces () throws MiroTokenizerException, MiroIndentationException {
         while (tokenizer.nextTokenType() == TokenType.WHITESPACE_TOKEN
                 || tokenizer.nextTokenType() == TokenType.NEWLINE_TOKEN
                 || tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN
@@ -96,14 +154,14 @@ public class Parser {
             tokenizer.getNext();
     }
 
-    public String consume (TokenType expectedType) throws MiroParserException {
+    public String consume (TokenType expectedType) throws MiroParserException, MiroTokenizerException, MiroIndentationException {
         if (expectedType == tokenizer.nextTokenType())
             return tokenizer.getNext().getToken();
         else
             throw new MiroParserException("Unexpected token '"+tokenizer.getNext().getToken() + "' expected " + expectedType);
     }
 
-    public boolean optional (TokenType optionalType) throws MiroParserException {
+    public boolean optional (TokenType optionalType) throws MiroParserException, MiroTokenizerException, MiroIndentationException {
         if (tokenizer.nextTokenType() == optionalType) {
             consume(optionalType);
             return true;
@@ -116,12 +174,28 @@ public class Parser {
     }
 
     public MiroValue parseValue (boolean quitAtComma) throws MiroException {
+        Expression expression = parseExpression(quitAtComma);
+        return expression == null ? null : expression.evaluate(context);
+    }
+
+    public Expression parseExpression () throws MiroException {
+        return parseExpression(false);
+    }
+
+    /**
+     * Parses a calculation, all parts of it that only consist of literals are calculated right away
+     */
+    private Expression parseCalculation (boolean openedByBracket) throws MiroException {
+        return new Calculator(this, openedByBracket).fold();
+    }
+
+    public Expression parseExpression (boolean quitAtComma) throws MiroException {
         consumeWhitespaces();
 
         if (tokenizer.nextTokenType() == TokenType.C_R_TOKEN)
             return null;
 
-        MultiValue multiValue = new MultiValue();
+        List<Expression> values = new ArrayList<>();
 
         TokenType delimiter = null;
 
@@ -135,84 +209,58 @@ public class Parser {
 
             consumeNewlinesAndWhitespaces();
 
-            MiroValue parsedValue = null;
-            int sizeBefore = multiValue.size();
+            Expression parsedValue = null;
             consumeWhitespaces();
 
             if (tokenizer.nextTokenType() == TokenType.MIRO_IDENT_TOKEN) {
                 Token token = tokenizer.getNext();
-                parsedValue = findSymbol(token.getToken().substring(1));
-                if (parsedValue == null)
-                    throw new MiroParserException("Unknown variable '" + token.getToken() + "'");
+                parsedValue = new VariableExpression(token.getToken().substring(1));
             } else if (tokenizer.nextTokenType() == TokenType.NUMBER_TOKEN
                     || tokenizer.nextTokenType() == TokenType.DIMENSION_TOKEN
                     || tokenizer.nextTokenType() == TokenType.PERCENTAGE_TOKEN) {
-                parsedValue = new Numeric(tokenizer.getNext());
+                parsedValue = new ConstantExpression(new Numeric(tokenizer.getNext()));
             } else if (tokenizer.nextTokenType() == TokenType.STRING_TOKEN) {
-                parsedValue = new StringValue(tokenizer.getNext());
+                parsedValue = new ConstantExpression(new StringValue(tokenizer.getNext()));
             } else if (tokenizer.nextTokenType() == TokenType.IDENT_TOKEN) {
                 Token token = tokenizer.getNext();
-                if (Color.knowsColor(token.getToken()))
-                    parsedValue = new Color(Color.getDefaultColorDictionary().get(token.getToken()));
+                Color namedColor = Color.forName(token.getToken());
+                if (namedColor != null)
+                    parsedValue = new ConstantExpression(namedColor);
                 else if ("TRUE".equals(token.getToken()) || "FALSE".equals(token.getToken()))
-                    parsedValue = new Bool("TRUE".equals(token.getToken()) ? true : false);
+                    parsedValue = new ConstantExpression(new Bool("TRUE".equals(token.getToken()) ? true : false));
                 else
-                    parsedValue = new Ident(token);
+                    parsedValue = new ConstantExpression(new Ident(token));
             } else if (tokenizer.nextTokenType() == TokenType.O_R_TOKEN) {
-                parsedValue = new Calculator(this, true).eval();
+                parsedValue = parseCalculation(true);
             } else if (tokenizer.nextTokenType() == TokenType.HASH_TOKEN)
-                parsedValue = new Color(tokenizer.getNext().getToken());
+                parsedValue = new ConstantExpression(Color.valueOf(tokenizer.getNext().getToken()));
             else if (tokenizer.nextTokenType() == TokenType.URL_TOKEN)
-                parsedValue = new Url(tokenizer.getNext());
+                parsedValue = new ConstantExpression(new Url(tokenizer.getNext()));
             else if (tokenizer.nextTokenType() == TokenType.FUNCTION_TOKEN) {
                 String functionName = consume(TokenType.FUNCTION_TOKEN);
                 functionName = functionName.substring(0, functionName.length() - 1);
 
                 consumeWhitespaces();
-                MiroValue parsedParameter = parseValue();
+                Expression parameters = parseExpression();
                 consumeWhitespaces();
                 consume(TokenType.C_R_TOKEN);
 
-                if (!(parsedParameter instanceof MultiValue)) {
-                    MultiValue mv = new MultiValue();
-                    mv.addValue(parsedParameter);
-                    parsedParameter = mv;
-                }
-
-                parsedValue = new Function(functionName, (MultiValue) parsedParameter);
-
-                if ("rgb".equals(((Function) parsedValue).getName())) {
-                    for (MiroValue val : ((MultiValue) parsedParameter).getValues())
-                        if (!(val instanceof Numeric))
-                            throw new MiroParserException("Cannot create Color from " + val.getClass().getSimpleName());
-                    parsedValue = new Color((Numeric) ((MultiValue) parsedParameter).get(0), (Numeric) ((MultiValue) parsedParameter).get(1), (Numeric) ((MultiValue) parsedParameter).get(2), new Numeric(255, Unit.NONE));
-                }
-                else if ("rgba".equals(((Function) parsedValue).getName())) {
-                    for (MiroValue val : ((MultiValue) parsedParameter).getValues())
-                        if (!(val instanceof Numeric))
-                            throw new MiroParserException("Cannot create Color from " + val.getClass().getSimpleName());
-                    parsedValue = new Color((Numeric) ((MultiValue) parsedParameter).get(0), (Numeric) ((MultiValue) parsedParameter).get(1), (Numeric) ((MultiValue) parsedParameter).get(2), (Numeric) ((MultiValue) parsedParameter).get(3));
-                }
+                parsedValue = new FunctionExpression(functionName, parameters);
             }
             else if (tokenizer.nextTokenType() == TokenType.O_Q_TOKEN) {
-                parsedValue = new com.sirweb.miro.parsing.values.miro.List();
+                Expression content = null;
                 inCollection = true;
                 consume(TokenType.O_Q_TOKEN);
                 consumeNewlinesAndWhitespaces();
-                if (tokenizer.nextTokenType() != TokenType.C_Q_TOKEN) {
-                    MiroValue content = parseValue();
-                    if (content instanceof MultiValue)
-                        for (MiroValue value : ((MultiValue) content).getValues())
-                            ((com.sirweb.miro.parsing.values.miro.List) parsedValue).addValue(value);
-                    else
-                        ((com.sirweb.miro.parsing.values.miro.List) parsedValue).addValue(content);
-                }
+                if (tokenizer.nextTokenType() != TokenType.C_Q_TOKEN)
+                    content = parseExpression();
                 consumeNewlinesAndWhitespaces();
                 consume(TokenType.C_Q_TOKEN);
                 inCollection = false;
+                parsedValue = new ListExpression(content);
             }
             else if (tokenizer.nextTokenType() == TokenType.O_C_TOKEN) {
-                parsedValue = new Dictionary();
+                DictionaryExpression dictionary = new DictionaryExpression();
 
                 consume(TokenType.O_C_TOKEN);
                 inCollection = true;
@@ -222,14 +270,15 @@ public class Parser {
                     consumeNewlinesAndWhitespaces();
                     consume(TokenType.COLON_TOKEN);
                     consumeNewlinesAndWhitespaces();
-                    MiroValue value = parseValue(true);
+                    Expression value = parseExpression(true);
                     consumeNewlinesAndWhitespaces();
                     optional(TokenType.COMMA_TOKEN);
                     consumeNewlinesAndWhitespaces();
-                    ((Dictionary) parsedValue).setValue(key, value);
+                    dictionary.addEntry(key, value);
                 }
                 consume(TokenType.C_C_TOKEN);
                 inCollection = false;
+                parsedValue = dictionary;
             }
 
             if (parsedValue == null)
@@ -238,22 +287,12 @@ public class Parser {
             while (tokenizer.nextTokenType() == TokenType.FUNCTION_TOKEN) {
                 String funcName = consume(TokenType.FUNCTION_TOKEN);
                 funcName = funcName.substring(1, funcName.length() - 1);
-                MiroValue parameterValue = parseValue();
-                List<MiroValue> parameters = new ArrayList<>();
-                if (parameterValue == null) {}
-                else if (parameterValue instanceof MultiValue) {
-                    for (int i = 0; i < ((MultiValue) parameterValue).size(); i++)
-                        parameters.add(((MultiValue) parameterValue).get(i));
-                }
-                else {
-                    parameters.add(parameterValue);
-                }
-
+                Expression parameters = parseExpression();
                 consume(TokenType.C_R_TOKEN);
-                parsedValue = (MiroValue) parsedValue.callFunc(funcName, parameters);
+                parsedValue = new MethodCallExpression(parsedValue, funcName, parameters);
             }
 
-            multiValue.addValue(parsedValue);
+            values.add(parsedValue);
 
             if (delimiter == null) {
                 consumeWhitespaces();
@@ -283,74 +322,94 @@ public class Parser {
 
         } while (tokenizer.nextTokenType() == delimiter);
 
-        if (delimiter == TokenType.WHITESPACE_TOKEN) {
-            com.sirweb.miro.parsing.values.miro.List res = new com.sirweb.miro.parsing.values.miro.List();
-
-            for (MiroValue v : multiValue.getValues())
-                res.addValue(v);
-            return res;
-        }
-        else
-            return multiValue.size() > 1 ? multiValue : multiValue.get(0);
+        if (delimiter != TokenType.WHITESPACE_TOKEN && values.size() == 1)
+            return values.get(0);
+        return new ValueListExpression(values, delimiter == TokenType.WHITESPACE_TOKEN);
     }
 
+    /**
+     * Parses the whole token stream and executes it.
+     * Every top level element is executed as soon as it has been parsed.
+     */
     public MiroStylesheet parse () throws MiroException {
-        stack = new Stack<>();
-        parseStylesheet();
+        try {
+            parse(null);
+        } catch (IOException e) {
+            // Only thrown by block handlers
+            throw new IllegalStateException(e);
+        }
         return root;
     }
 
-    public MiroValue parseFunction () throws MiroException {
-        return null;
+    /**
+     * Receives the top level blocks of a stylesheet as soon as they are closed
+     */
+    public interface BlockHandler {
+        void closed (MiroStylesheet stylesheet) throws MiroException, IOException;
     }
 
-    private void parseStylesheet () throws MiroException {
+    /**
+     * Parses the whole token stream and executes it like {@link #parse()},
+     * but hands the top level blocks to the handler as soon as they are closed and drops them afterwards.
+     * The stylesheet passed to the handler only contains the blocks closed since the last call,
+     * its variables and mixins are kept for the rest of the stylesheet.
+     */
+    public void parse (BlockHandler handler) throws MiroException, IOException {
         root = new MiroStylesheet();
-        //for (String key : globals.getSymbols())
-         //   root.symbolTable().setSymbol(key, globals.getSymbol(key));
-        stack.push(root);
+        context = createContext();
+        context.push(root);
+
+        while (tokenizer.nextTokenType() != TokenType.EOF
+                && tokenizer.nextTokenType() != TokenType.MIRO_DEDENT_TOKEN) {
+            consumeWhitespaces();
+            consumeNewlines();
+            Node node = parseContentElement();
+            if (node != null)
+                node.execute(context);
+            // A block that stays open for the following lines is handed over once it is closed
+            if (handler != null && context.peek() == root)
+                flush(handler);
+            consumeWhitespaces();
+            consumeNewlines();
+        }
+        if (handler != null)
+            flush(handler);
+    }
+
+    private void flush (BlockHandler handler) throws MiroException, IOException {
+        if (!root.hasBlocks())
+            return;
+        handler.closed(root);
+        root.clearBlocks();
+    }
 
-        parseBlockContent();
+    /**
+     * Parses the whole token stream without executing it.
+     */
+    public Template compile () throws MiroException {
+        return parseBlockContent();
     }
 
-    private void parseScript () throws MiroException {
+    public MiroValue parseFunction () throws MiroException {
+        return null;
+    }
+
+    private Node parseScript () throws MiroException {
         if (tokenizer.nextTokenType() == TokenType.MIRO_IDENT_TOKEN) {
-            parseScriptAssignment();
+            Node assignment = parseScriptAssignment();
             optional(TokenType.SEMICOLON_TOKEN);
+            return assignment;
         }
         else if (tokenizer.nextTokenType() == TokenType.IDENT_TOKEN) {
             if ("if".equals(tokenizer.nextTokenString()))
-                parseScriptIf();
+                return parseScriptIf();
             else if ("for".equals(tokenizer.nextTokenString()))
-                parseScriptFor();
-        }
-    }
-
-    private MiroValue findSymbol (String symbolName) {
-        Stack<Element> tmpStack = (Stack<Element>) stack.clone();
-        while (!tmpStack.empty()) {
-            if (tmpStack.peek().symbolTable().hasSymbol(symbolName))
-                return tmpStack.peek().symbolTable().getSymbol(symbolName);
-            tmpStack.pop();
-        }
-        if (globals.hasSymbol(symbolName))
-            return globals.getSymbol(symbolName);
-        return null;
-    }
-
-    private MiroMixin findMixin (String mixinName) {
-        Stack<Element> tmpStack = (Stack<Element>) stack.clone();
-        while (!tmpStack.empty()) {
-            if (tmpStack.peek().symbolTable().hasMixin(mixinName))
-                return tmpStack.peek().symbolTable().getMixin(mixinName);
-            tmpStack.pop();
+                return parseScriptFor();
         }
-        if (globals.hasMixin(mixinName))
-            return globals.getMixin(mixinName);
         return null;
     }
 
-    private void parseScriptAssignment () throws MiroException {
+    private Node parseScriptAssignment () throws MiroException {
         String assignIdent = consume(TokenType.MIRO_IDENT_TOKEN).substring(1);
         consumeWhitespaces();
 
@@ -358,83 +417,85 @@ public class Parser {
 
         consumeWhitespaces();
 
-        MiroValue value = new Calculator(this).eval();
-
-        stack.peek().symbolTable().setSymbol(assignIdent, value);
+        return new AssignmentNode(assignIdent, parseCalculation(false));
     }
 
-    private void parseCss () throws MiroException {
+    private Node parseCss () throws MiroException {
         if (tokenizer.nextTokenType() == TokenType.MIRO_MIXIN_TOKEN) {
             if (tokenizer.lineOpensBlock())
-                parseMixinDeclaration();
+                return parseMixinDeclaration();
             else
-                parseMixinCall();
+                return parseMixinCall();
         } else if (tokenizer.nextTokenType() == TokenType.AT_KEYWORD_TOKEN)
-            parseAtExpression();
+            return parseAtExpression();
         else if (tokenizer.lineOpensBlock()) {
             if (tokenizer.nextTokenType() == TokenType.MIRO_NESTPROP_TOKEN)
-                parseNestProp();
+                return parseNestProp();
             else
-                parseCssBlock();
+                return parseCssBlock();
         }
         else
-            parseCssStatement("");
+            return parseCssStatement("");
     }
 
-    private void parseCssBlock () throws MiroException {
-        String header = "";
+    private Node parseCssBlock () throws MiroException {
+        InterpolatedString header = new InterpolatedString();
 
         do {
             if (tokenizer.nextTokenType() == TokenType.MIRO_INTERPOLATION_TOKEN) {
                 consume(TokenType.MIRO_INTERPOLATION_TOKEN);
                 consumeWhitespaces();
-                header += new Calculator(this).eval();
+                header.addInterpolation(parseCalculation(false));
                 consumeWhitespaces();
                 consume(TokenType.C_C_TOKEN);
             }
             else
-                header += tokenizer.getNext().getToken();
+                header.addText(tokenizer.getNext().getToken());
         } while (tokenizer.nextTokenType() != TokenType.NEWLINE_TOKEN);
 
-        MiroBlock block = new MiroBlock(header);
-
-        stack.peek().addBlock(block);
-        stack.push(block);
         consumeWhitespaces();
         consumeNewlines();
         consume(TokenType.MIRO_INDENT_TOKEN);
-        parseBlockContent();
+        Template content = parseBlockContent();
         if (tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN)
             consume(TokenType.MIRO_DEDENT_TOKEN);
         else
             consume(TokenType.EOF);
 
-        if (tokenizer.getNextTokenTypeNotWhitespaceOrNewline() != TokenType.MIRO_INDENT_TOKEN)
-            stack.pop();
+        boolean closes = tokenizer.getNextTokenTypeNotWhitespaceOrNewline() != TokenType.MIRO_INDENT_TOKEN;
+        return new BlockNode(header, content, closes);
     }
 
-    private void parseBlockContent () throws MiroException {
+    private Template parseBlockContent () throws MiroException {
+        Template template = new Template();
         while (tokenizer.nextTokenType() != TokenType.EOF
                 && tokenizer.nextTokenType() != TokenType.MIRO_DEDENT_TOKEN) {
             consumeWhitespaces();
             consumeNewlines();
-            if (tokenizer.nextTokenType() == TokenType.MIRO_IDENT_TOKEN
-                    || (tokenizer.nextTokenType() == TokenType.IDENT_TOKEN && ("if".equals(tokenizer.nextTokenString()) || "for".equals(tokenizer.nextTokenString()))))
-                parseScript();
-            else
-                parseCss();
+            Node node = parseContentElement();
+            if (node != null)
+                template.addNode(node);
             consumeWhitespaces();
             consumeNewlines();
         }
+        return template;
     }
 
-    private void parseCssStatement (String prependProperty) throws MiroException {
+    private Node parseContentElement () throws MiroException {
+        if (tokenizer.nextTokenType() == TokenType.MIRO_IDENT_TOKEN
+                || (tokenizer.nextTokenType() == TokenType.IDENT_TOKEN && ("if".equals(tokenizer.nextTokenString()) || "for".equals(tokenizer.nextTokenString()))))
+            return parseScript();
+        else
+            return parseCss();
+    }
+
+    private Node parseCssStatement (String prependProperty) throws MiroException {
         String property = consume(TokenType.IDENT_TOKEN);
         consumeWhitespaces();
         optional(TokenType.COLON_TOKEN);
         consumeWhitespaces();
 
-        MiroValue value = new Calculator(this).eval();
+        Expression value = parseCalculation(false);
 
 
         consumeWhitespaces();
@@ -448,52 +509,53 @@ public class Parser {
                 important = true;
 
 
-        stack.peek().addStatement(new MiroStatement(prependProperty + property, value, important));
         consumeWhitespaces();
 
         optional(TokenType.SEMICOLON_TOKEN);
         consumeWhitespaces();
         optional(TokenType.NEWLINE_TOKEN);
 
+        return new StatementNode(prependProperty + property, value, important);
     }
 
-    private void parseNestProp () throws MiroException {
+    private Node parseNestProp () throws MiroException {
         String nest = consume(TokenType.MIRO_NESTPROP_TOKEN);
         consumeNewlines();
         consume(TokenType.MIRO_INDENT_TOKEN);
         nest = nest.substring(0, nest.length() - 1);
 
+        Template template = new Template();
         while (tokenizer.nextTokenType() != TokenType.EOF
                 && tokenizer.nextTokenType() != TokenType.MIRO_DEDENT_TOKEN) {
             consumeWhitespaces();
             consumeNewlines();
+            Node node;
             if (tokenizer.nextTokenType() == TokenType.MIRO_IDENT_TOKEN)
-                parseScript();
+                node = parseScript();
             else
-                parseCssStatement(nest);
+                node = parseCssStatement(nest);
+            if (node != null)
+                template.addNode(node);
             consumeWhitespaces();
             consumeNewlines();
         }
         consumeNewlines();
         optional(TokenType.MIRO_DEDENT_TOKEN);
+        return template;
     }
 
-    private void parseAtExpression () throws MiroException {
+    private Node parseAtExpression () throws MiroException {
         String tokenString = tokenizer.getNext().getToken().substring(1).toLowerCase();
 
         switch (tokenString) {
             case "media":
-                parseMediaQuery();
-                break;
+                return parseMediaQuery();
             case "if":
-                parseMediaIf();
-                break;
+                return parseMediaIf();
             case "use":
-                parseUse();
-                break;
+                return parseUse();
             case "import":
-                parseImport();
-                break;
+                return parseImport();
             case "color":
             case "string":
             case "stringvalue":
@@ -505,54 +567,46 @@ public class Parser {
             case "list":
             case "dictionary":
             case "url":
-                parseValueExtension(tokenString);
-                break;
+                return parseValueExtension(tokenString);
             default:
-                parseUnknownAtRule();
-                break;
+                return parseUnknownAtRule();
 
 
         }
     }
 
-    private void parseMediaQuery () throws MiroException {
-        String mediaString = "";
+    private Node parseMediaQuery () throws MiroException {
+        InterpolatedString mediaString = new InterpolatedString();
 
         while (tokenizer.nextTokenType() != TokenType.NEWLINE_TOKEN
                 && tokenizer.nextTokenType() != TokenType.EOF) {
             if (tokenizer.nextTokenType() == TokenType.MIRO_INTERPOLATION_TOKEN) {
                 consume(TokenType.MIRO_INTERPOLATION_TOKEN);
 
-                Calculator calculator = new Calculator(this);
-                mediaString += calculator.eval().toString();
+                mediaString.addInterpolation(parseCalculation(false));
 
                 consume(TokenType.C_C_TOKEN);
             }
             else {
-                mediaString += tokenizer.getNext().getToken();
+                mediaString.addText(tokenizer.getNext().getToken());
             }
         }
 
-        MiroBlock block = new MiroMediaQuery(mediaString);
-
-        stack.peek().addBlock(block);
-        stack.push(block);
-
         consumeNewlines();
         consume(TokenType.MIRO_INDENT_TOKEN);
-        parseBlockContent();
+        Template content = parseBlockContent();
         if (tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN)
             consume(TokenType.MIRO_DEDENT_TOKEN);
         else
             consume(TokenType.EOF);
-        stack.pop();
+        return new MediaQueryNode(mediaString, content);
     }
 
-    private void parseMediaIf () throws MiroException {
-        String mediaString = "";
+    private Node parseMediaIf () throws MiroException {
+        MediaIfNode mediaIf = new MediaIfNode();
         do {
             consumeWhitespaces();
-            mediaString += parseMediaIfArgument();
+            parseMediaIfArgument(mediaIf);
 
             consumeWhitespaces();
 
@@ -561,9 +615,9 @@ public class Parser {
             if (tokenizer.nextTokenType() == TokenType.IDENT_TOKEN) {
                 Token currentToken = tokenizer.getNext();
                 if ("and".equals(currentToken.getToken()))
-                    mediaString += " and ";
+                    mediaIf.addConnective(" and ");
                 else if ("or".equals(currentToken.getToken()))
-                    mediaString += ", ";
+                    mediaIf.addConnective(", ");
                 else
                     throw new MiroParserException("Unexpected token " + currentToken + " expected 'and', 'or', '||', '&&'");
             }
@@ -571,9 +625,9 @@ public class Parser {
 
                 Token currentToken = tokenizer.getNext();
                 if ("&&".equals(currentToken.getToken()))
-                    mediaString += " and ";
+                    mediaIf.addConnective(" and ");
                 else if ("||".equals(currentToken.getToken()))
-                    mediaString += ", ";
+                    mediaIf.addConnective(", ");
                 else
                     throw new MiroParserException("Unexpected token " + currentToken + " expected 'and', 'or', '||', '&&'");
             }
@@ -586,23 +640,18 @@ public class Parser {
 
         consume(TokenType.COLON_TOKEN);
 
-        MiroBlock block = new MiroMediaQuery(mediaString);
-
-        stack.peek().addBlock(block);
-        stack.push(block);
-
         consumeNewlines();
         consume(TokenType.MIRO_INDENT_TOKEN);
-        parseBlockContent();
+        mediaIf.setContent(parseBlockContent());
         if (tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN)
             consume(TokenType.MIRO_DEDENT_TOKEN);
         else
             consume(TokenType.EOF);
-        stack.pop();
 
+        return mediaIf;
     }
 
-    private String parseMediaIfArgument () throws MiroException {
+    private void parseMediaIfArgument (MediaIfNode mediaIf) throws MiroException {
         consume(TokenType.O_R_TOKEN);
         consumeWhitespaces();
         String property = consume(TokenType.IDENT_TOKEN);
@@ -625,55 +674,13 @@ public class Parser {
 
         consumeWhitespaces();
 
-        MiroValue value = parseValue();
+        Expression value = parseExpression();
         consume(TokenType.C_R_TOKEN);
 
-        if ("width".equals(property) || "device-width".equals(property) || "device-height".equals(property) || "color".equals(property) || "color-index".equals(property) || "monochrome".equals(property) || "grid".equals(property)) {
-            if (!(value instanceof Numeric))
-                throw new MiroParserException("Media-if property '"+property+"' only takes values of type Number");
-
-            if ("<=".equals(comparisonOperator))
-                return "(max-"+property+": " + value.toString() + ")";
-            else if (">=".equals(comparisonOperator))
-                return "(min-"+property+": " + value.toString() + ")";
-            else if ("<".equals(comparisonOperator))
-                return "(max-"+property+": " + (((Numeric) value).getValue() - 1) + ((Numeric) value).getUnit() + ")";
-            else if (">".equals(comparisonOperator))
-                return "(min-"+property+": " + (((Numeric) value).getValue() + 1) + ((Numeric) value).getUnit() + ")";
-            else if ("==".equals(comparisonOperator))
-                return "("+property+": " + value.toString() + ")";
-            else
-                throw new MiroParserException("Media-if property '"+property+"' cannot deal with comparison operator '"+comparisonOperator+"'");
-
-
-        }
-        else if ("orientation".equals(property) || "light-level".equals(property) || "pointer".equals(property)) {
-            if (!(value instanceof Ident))
-                throw new MiroException("Media-if property '"+property+"' only takes values of type Ident");
-
-            if ("==".equals(comparisonOperator))
-                return "("+property+": " + value.toString() + ")";
-            else
-                throw new MiroException("Media-if property '"+property+"' cannot deal with comparison operator '"+comparisonOperator+"'");
-
-        }
-        else if ("media".equals(property)) {
-            if (!(value instanceof Ident))
-                throw new MiroException("Media-if property 'media' only takes values of type Ident");
-
-            if ("==".equals(comparisonOperator))
-                return value.toString();
-            else if ("has".equals(comparisonOperator))
-                return "(" + value.toString()  + ")";
-            else
-                throw new MiroParserException("Media-if property 'media' cannot deal with comparison operator '"+comparisonOperator+"'");
-
-        }
-        else
-            throw new MiroParserException("Unknown Media-if property '" + property + "'");
+        mediaIf.addArgument(property, comparisonOperator, value);
     }
 
-    private void parseUse () throws MiroException {
+    private Node parseUse () throws MiroException {
         consumeWhitespaces();
 
         String filePath;
@@ -681,97 +688,28 @@ public class Parser {
         filePath = consume(TokenType.STRING_TOKEN);
         filePath = filePath.substring(1, filePath.length() - 1);
 
-        String fileContent = new Reader(filePath).read();
-
-        Tokenizer tokenizer = new Tokenizer(fileContent);
-        tokenizer.tokenize();
-        Parser miroParser = new Parser(tokenizer);
-        MiroStylesheet miroStylesheet = miroParser.parse();
-
-        SymbolTable st = miroStylesheet.symbolTable();
-
-        for (String symbol : st.getSymbols())
-            stack.peek().symbolTable().setSymbol(symbol, st.getSymbol(symbol));
-
         optional(TokenType.SEMICOLON_TOKEN);
 
+        return new UseNode(filePath);
     }
 
-    private void parseImport () throws MiroException {
+    private Node parseImport () throws MiroException {
         consumeWhitespaces();
 
-        Calculator calculator = new Calculator(this);
-        MiroValue urlValue = calculator.eval();
-
-        boolean isMiroImport = false;
-        if (urlValue instanceof StringValue) {
-            if (((StringValue) urlValue).getValue().endsWith(".miro"))
-                isMiroImport = true;
-            else
-                stack.peek().addImportRule(new MiroImportRule(urlValue));
-        }
-        else if (urlValue instanceof Url) {
-            if (((Url) urlValue).getUrl().endsWith(".miro"))
-                isMiroImport = true;
-            else
-                stack.peek().addImportRule(new MiroImportRule(urlValue));
-        }
-        else
-            throw new MiroImportException("Cannot import file from value type " + urlValue.getClass().getSimpleName());
-
-        if (isMiroImport) {
-            String importUrl = (urlValue instanceof StringValue) ? ((StringValue) urlValue).getValue() : ((Url) urlValue).getUrl();
-
-            if (!(importUrl.startsWith("/")
-                || importUrl.startsWith("http"))) {
-                String[] partElems = filePath.split("/");
-                for (int i = partElems.length - 2; i >= 0; i--)
-                    importUrl = partElems[i] + "/" + importUrl;
-            }
-            File importFile = new File(importUrl);
-            if (!(importFile.exists() && !importFile.isDirectory()))
-                throw new MiroImportException("The specified file " + importUrl + " could not be found");
-
-            Tokenizer tempTokenizer = new Tokenizer(new Reader(importUrl).read());
-            tempTokenizer.tokenize();
-
-            SymbolTable fullSymbols = getFullSymbolTable();
-
-            Parser tempParser = new Parser(tempTokenizer);
-            for (String symbol : fullSymbols.getSymbols())
-                tempParser.setGlobal(symbol, fullSymbols.getSymbol(symbol));
-            for (MiroMixin mixin : fullSymbols.getMixins())
-                tempParser.setGlobal(mixin);
-
-            MiroStylesheet tempStylesheet = tempParser.parse();
-
-            for (String symbol : tempStylesheet.symbolTable().getSymbols())
-                stack.peek().symbolTable().setSymbol(symbol, tempStylesheet.symbolTable().getSymbol(symbol));
-
-            for (MiroMixin mixin : tempStylesheet.symbolTable().getMixins())
-                stack.peek().symbolTable().addMixin(mixin);
-
-            for (Block block : tempStylesheet.getBlocks())
-                stack.peek().addBlock(block);
-            for (Statement statement : tempStylesheet.getStatements())
-                stack.peek().addStatement(statement);
-            for (ImportRule importRule : tempStylesheet.getImportRules())
-                stack.peek().addImportRule(importRule);
-
-
-        }
+        Expression calculator = parseCalculation(false);
 
         optional(TokenType.SEMICOLON_TOKEN);
 
+        return new ImportNode(calculator);
     }
 
-    private void parseUnknownAtRule () throws MiroException {
-        String atRule = tokenizer.nextTokenString().substring(1);
+    private Node parseUnknownAtRule () throws MiroException {
         if (tokenizer.lineOpensBlock())
-            parseUnknownAtBlock();
+            return parseUnknownAtBlock();
+        return null;
     }
 
-    private void parseUnknownAtBlock () throws MiroException {
+    private Node parseUnknownAtBlock () throws MiroException {
         String header = "";
         tokenizer.pushBack();
         do
@@ -781,165 +719,121 @@ public class Parser {
         consume(TokenType.NEWLINE_TOKEN);
         consume(TokenType.MIRO_INDENT_TOKEN);
 
-        MiroBlock block = new MiroBlock(header);
-
-        stack.peek().addBlock(block);
-        stack.push(block);
-
-        parseBlockContent();
+        Template content = parseBlockContent();
 
         if (tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN)
             consume(TokenType.MIRO_DEDENT_TOKEN);
         else
             consume(TokenType.EOF);
-        stack.pop();
 
+        return new UnknownAtBlockNode(header, content);
     }
 
-    private void parseMixinDeclaration () throws  MiroException {
+    private Node parseMixinDeclaration () throws  MiroException {
         String declarationString = consume(TokenType.MIRO_MIXIN_TOKEN);
         String mixinName = declarationString.substring(1, declarationString.length() - 1);
-        MiroMixin mixin = new MiroMixin(mixinName);
         consumeWhitespaces();
 
+        List<String> parameterNames = new ArrayList<>();
+        List<Expression> defaultValues = new ArrayList<>();
+        parseDeclarationParameters(parameterNames, defaultValues);
+
+        consume(TokenType.C_R_TOKEN);
+        consume(TokenType.NEWLINE_TOKEN);
+        consume(TokenType.MIRO_INDENT_TOKEN);
+
+        TokenBuffer content = parseIndentedContent();
+
+        if (tokenizer.nextTokenType() != TokenType.EOF)
+            consume(TokenType.MIRO_DEDENT_TOKEN);
+
+        // Errors in the content are reported when the mixin is called, not when it is declared
+        Template template;
+        try {
+            template = new Parser(new Tokenizer(content), filePath).compile();
+        } catch (MiroException e) {
+            template = null;
+        }
+
+        MixinDeclarationNode declaration = new MixinDeclarationNode(mixinName, content, template);
+        for (int i = 0; i < parameterNames.size(); i++)
+            declaration.addParameter(parameterNames.get(i), defaultValues.get(i));
+        return declaration;
+    }
+
+    /**
+     * Parses parameters like (a, b, c = 10px) up to the closing bracket.
+     */
+    private void parseDeclarationParameters (List<String> names, List<Expression> defaultValues) throws MiroException {
         boolean startDefaultValues = false;
         while (tokenizer.nextTokenType() != TokenType.C_R_TOKEN) {
             consumeWhitespaces();
-            MiroMixinParameter parameter = parseMixinDeclarationParameter();
+            String name = consume(TokenType.IDENT_TOKEN);
+            Expression defaultValue = null;
+            consumeWhitespaces();
 
-            if (startDefaultValues && parameter.getDefaultValue() == null)
+            if (tokenizer.nextTokenType() == TokenType.EQUAL_TOKEN) {
+                consume(TokenType.EQUAL_TOKEN);
+                consumeWhitespaces();
+                defaultValue = parseExpression(true);
+                consumeWhitespaces();
+            }
+
+            if (startDefaultValues && defaultValue == null)
                 throw new MiroMixinException("Seperate parameters with and without default values");
 
-            if (parameter.getDefaultValue() != null)
+            if (defaultValue != null)
                 startDefaultValues = true;
-            mixin.addParameter(parameter);
+            names.add(name);
+            defaultValues.add(defaultValue);
             consumeWhitespaces();
             optional(TokenType.COMMA_TOKEN);
             consumeWhitespaces();
         }
-        consume(TokenType.C_R_TOKEN);
-        consume(TokenType.NEWLINE_TOKEN);
-        consume(TokenType.MIRO_INDENT_TOKEN);
+    }
 
+    /**
+     * Takes all tokens of an indented block up to (excluding) the dedent that closes it.
+     */
+    private TokenBuffer parseIndentedContent () throws MiroException {
+        int contentStart = tokenizer.mark();
         int indents = 0;
         do {
             if (tokenizer.nextTokenType() == TokenType.MIRO_INDENT_TOKEN)
                 indents++;
             else if (tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN)
                 indents--;
-            mixin.addContent(tokenizer.getNext());
+            tokenizer.getNext();
         } while (!(indents == 0 && tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN) && !(tokenizer.nextTokenType() == TokenType.EOF));
-
-        if (tokenizer.nextTokenType() != TokenType.EOF)
-            consume(TokenType.MIRO_DEDENT_TOKEN);
-
-        stack.peek().symbolTable().addMixin(mixin);
-    }
-
-    private MiroMixinParameter parseMixinDeclarationParameter () throws MiroException {
-        consumeWhitespaces();
-        String name = consume(TokenType.IDENT_TOKEN);
-        MiroValue defaultValue = null;
-        consumeWhitespaces();
-
-        if (tokenizer.nextTokenType() == TokenType.EQUAL_TOKEN) {
-            consume(TokenType.EQUAL_TOKEN);
-            consumeWhitespaces();
-            defaultValue = parseValue(true);
-            consumeWhitespaces();
-        }
-
-        return new MiroMixinParameter(name, defaultValue);
+        return tokenizer.sliceFrom(contentStart);
     }
 
-    private void parseMixinCall () throws MiroException {
+    private Node parseMixinCall () throws MiroException {
         String callString = consume(TokenType.MIRO_MIXIN_TOKEN);
         String mixinName = callString.substring(1, callString.length() - 1);
 
-        MiroValue parameterValue = parseValue();
+        Expression parameters = parseExpression();
         consume(TokenType.C_R_TOKEN);
 
-        MiroMixin mixin = findMixin(mixinName);
-
-        if (mixin == null)
-            throw new MiroParserException("Unknown mixin with name '"+mixinName+"'");
-
-        int parameterCount;
-
-        if (parameterValue instanceof MultiValue)
-            parameterCount = ((MultiValue) parameterValue).size();
-        else if (parameterValue == null)
-            parameterCount = 0;
-        else
-            parameterCount = 1;
-
-        List<MiroMixinParameter> neededParameters = new ArrayList<>();
-
-        for (MiroMixinParameter param : mixin.getParameters())
-            if (param.getDefaultValue() == null)
-                neededParameters.add(param);
-
-        if (parameterCount < neededParameters.size())
-            throw new MiroMixinException("Mixin " + mixinName + " takes " + mixin.getParameterCount() + " parameters but " + parameterCount + " were passed");
-
-        List<MiroValue> parameterValueList = new ArrayList<>();
-
-
-        int i = 0;
-        if (parameterCount == 1) {
-            parameterValueList.add(parameterValue);
-            i++;
-        }
-        else if (parameterCount > 1) {
-
-            for (MiroValue v : ((MultiValue) parameterValue).getValues()) {
-                parameterValueList.add(v);
-                i++;
-            }
-        }
-        for (; i < mixin.getParameterCount(); i++)
-            parameterValueList.add(mixin.getParameter(i).getDefaultValue());
-
-        Tokenizer mixinTokenizer = new Tokenizer(mixin.getContent());
-        Parser mixinParser = new Parser(mixinTokenizer);
-
-        SymbolTable fullSymbols = getFullSymbolTable();
-
-        for (String key : fullSymbols.getSymbols())
-            mixinParser.setGlobal(key, fullSymbols.getSymbol(key));
-
-        int paramIndex = 0;
-        for (MiroMixinParameter param : mixin.getParameters()) {
-            mixinParser.setGlobal(param.getName(), parameterValueList.get(paramIndex));
-            paramIndex++;
-        }
-
-        MiroStylesheet mixinStylesheet = mixinParser.parse();
-
-        for (Statement statement : mixinStylesheet.getStatements())
-            stack.peek().addStatement(statement);
-
-
-        for (Block block : mixinStylesheet.getBlocks())
-            stack.peek().addBlock(block);
-
+        return new MixinCallNode(mixinName, parameters);
     }
 
-    private void parseScriptIf () throws MiroException {
+    private Node parseScriptIf () throws MiroException {
         consume(TokenType.IDENT_TOKEN);
         consumeWhitespaces();
-        Calculator conditionCalculator = new Calculator(this);
-        MiroValue condition = conditionCalculator.eval();
+        Expression condition = parseCalculation(false);
+        // A condition that only consists of literals decides at parse time, the other branch is skipped
+        Boolean known = condition instanceof ConstantExpression && ((ConstantExpression) condition).getValue() != null
+                ? ((ConstantExpression) condition).getValue().getBoolean()
+                : null;
 
         consumeWhitespaces();
         consume(TokenType.COLON_TOKEN);
         consume(TokenType.NEWLINE_TOKEN);
         consume(TokenType.MIRO_INDENT_TOKEN);
 
-        if (condition.getBoolean())
-            parseBlockContent();
-        else
-            consumeBlock();
+        Template then = parseBranch(known == null || known);
+        Template otherwise = null;
 
         consumeNewlines();
 
@@ -952,10 +846,7 @@ public class Parser {
                 consume(TokenType.COLON_TOKEN);
                 consume(TokenType.NEWLINE_TOKEN);
                 consume(TokenType.MIRO_INDENT_TOKEN);
-                if (condition.getBoolean())
-                    consumeBlock();
-                else
-                    parseBlockContent();
+                otherwise = parseBranch(known == null || !known);
                 consumeNewlines();
                 if (tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN)
                     consume(TokenType.MIRO_DEDENT_TOKEN);
@@ -966,9 +857,22 @@ public class Parser {
         else
             consume(TokenType.EOF);
 
+        if (known != null)
+            return known ? then : otherwise;
+        return new IfNode(condition, then, otherwise);
     }
 
-    private void parseScriptFor () throws MiroException {
+    /**
+     * @return the content of an if branch or null if the branch is never taken
+     */
+    private Template parseBranch (boolean taken) throws MiroException {
+        if (taken)
+            return parseBlockContent();
+        consumeBlock();
+        return null;
+    }
+
+    private Node parseScriptFor () throws MiroException {
         consume(TokenType.IDENT_TOKEN);
         consumeWhitespaces();
         String key = consume(TokenType.IDENT_TOKEN);
@@ -980,204 +884,36 @@ public class Parser {
             consumeWhitespaces();
         }
         String operation = consume(TokenType.IDENT_TOKEN);
-        Calculator vCalc = new Calculator(this);
-        MiroValue objectValue = vCalc.eval();
+        Expression object = parseCalculation(false);
         consume(TokenType.COLON_TOKEN);
 
         consume(TokenType.NEWLINE_TOKEN);
         consume(TokenType.MIRO_INDENT_TOKEN);
 
-        List<Token> forContent = new ArrayList<>();
-
-        int indents = 0;
-        do {
-            if (tokenizer.nextTokenType() == TokenType.MIRO_INDENT_TOKEN)
-                indents++;
-            else if (tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN)
-                indents--;
-            forContent.add(tokenizer.getNext());
-        } while (!(indents == 0 && tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN) && !(tokenizer.nextTokenType() == TokenType.EOF));
+        Template forContent = parseBlockContent();
 
         if (tokenizer.nextTokenType() != TokenType.EOF)
             consume(TokenType.MIRO_DEDENT_TOKEN);
 
-
-        if ("in".equals(operation)) {
-            if (objectValue instanceof com.sirweb.miro.parsing.values.miro.List) {
-                int index = 0;
-                for (MiroValue currentValue : ((com.sirweb.miro.parsing.values.miro.List) objectValue).getValues()) {
-                    Tokenizer forTokenizer = new Tokenizer(forContent);
-                    Parser forParser = new Parser(forTokenizer);
-
-                    SymbolTable fullSymbols = getFullSymbolTable();
-
-                    for (String symbol : fullSymbols.getSymbols())
-                        forParser.setGlobal(symbol, fullSymbols.getSymbol(symbol));
-                    for (MiroMixin mixin : fullSymbols.getMixins())
-                        forParser.setGlobal(mixin);
-
-                    if (value == null)
-                        forParser.setGlobal(key, currentValue);
-                    else {
-                        forParser.setGlobal(key, new Numeric(index, Unit.NONE));
-                        forParser.setGlobal(value, currentValue);
-                    }
-
-                    MiroStylesheet forStylesheet = forParser.parse();
-
-                    for (Statement statement : forStylesheet.getStatements())
-                        stack.peek().addStatement(statement);
-
-
-                    for (Block block : forStylesheet.getBlocks())
-                        stack.peek().addBlock(block);
-
-                    for (ImportRule importRule : forStylesheet.getImportRules())
-                        stack.peek().addImportRule(importRule);
-
-                    for (String symbol : forStylesheet.symbolTable().getSymbols())
-                        stack.peek().symbolTable().setSymbol(symbol, forStylesheet.symbolTable().getSymbol(symbol));
-                    index++;
-                }
-            }
-            else if (objectValue instanceof StringValue) {
-                for (int index = 0; index < ((StringValue) objectValue).getValue().length(); index++) {
-                    Tokenizer forTokenizer = new Tokenizer(forContent);
-                    Parser forParser = new Parser(forTokenizer);
-
-                    SymbolTable fullSymbols = getFullSymbolTable();
-
-                    for (String symbol : fullSymbols.getSymbols())
-                        forParser.setGlobal(symbol, fullSymbols.getSymbol(symbol));
-                    for (MiroMixin mixin : fullSymbols.getMixins())
-                        forParser.setGlobal(mixin);
-
-                    if (value == null)
-                        forParser.setGlobal(key, new StringValue(((StringValue) objectValue).getValue().charAt(index) + ""));
-                    else {
-                        forParser.setGlobal(key, new Numeric(index, Unit.NONE));
-                        forParser.setGlobal(value, new StringValue(((StringValue) objectValue).getValue().charAt(index) + ""));
-                    }
-
-                    MiroStylesheet forStylesheet = forParser.parse();
-
-                    for (Statement statement : forStylesheet.getStatements())
-                        stack.peek().addStatement(statement);
-
-                    for (ImportRule importRule : forStylesheet.getImportRules())
-                        stack.peek().addImportRule(importRule);
-
-                    for (Block block : forStylesheet.getBlocks())
-                        stack.peek().addBlock(block);
-
-                    for (String symbol : forStylesheet.symbolTable().getSymbols())
-                        stack.peek().symbolTable().setSymbol(symbol, forStylesheet.symbolTable().getSymbol(symbol));
-                }
-            }
-            else if (objectValue instanceof  Dictionary) {
-                for (String keyIdent : ((Dictionary) objectValue).getKeys()) {
-                    Tokenizer forTokenizer = new Tokenizer(forContent);
-                    Parser forParser = new Parser(forTokenizer);
-
-                    SymbolTable fullSymbols = getFullSymbolTable();
-
-                    for (String symbol : fullSymbols.getSymbols())
-                        forParser.setGlobal(symbol, fullSymbols.getSymbol(symbol));
-                    for (MiroMixin mixin : fullSymbols.getMixins())
-                        forParser.setGlobal(mixin);
-
-                    if (value == null) {
-                        com.sirweb.miro.parsing.values.miro.List valList = new com.sirweb.miro.parsing.values.miro.List();
-                        valList.addValue(new Ident(keyIdent));
-                        valList.addValue(((Dictionary) objectValue).get(keyIdent));
-                        forParser.setGlobal(key, valList);
-                    }
-                    else {
-                        forParser.setGlobal(key, new Ident(keyIdent));
-                        forParser.setGlobal(value, ((Dictionary) objectValue).get(keyIdent));
-                    }
-
-                    MiroStylesheet forStylesheet = forParser.parse();
-
-                    for (Statement statement : forStylesheet.getStatements())
-                        stack.peek().addStatement(statement);
-
-                    for (ImportRule importRule : forStylesheet.getImportRules())
-                        stack.peek().addImportRule(importRule);
-
-                    for (Block block : forStylesheet.getBlocks())
-                        stack.peek().addBlock(block);
-
-                    for (String symbol : forStylesheet.symbolTable().getSymbols())
-                        stack.peek().symbolTable().setSymbol(symbol, forStylesheet.symbolTable().getSymbol(symbol));
-                }
-            }
-            else
-                throw new MiroParserException("for ... in cannot be applied to value of type "+operation.getClass().getSimpleName());
-        }
-        else if ("to".equals(operation)) {
-            if (value != null)
-                throw new MiroParserException("for " + key + ", "+value+" to is not defined. for ... to ... only takes one index");
-            if (!(objectValue instanceof Numeric))
-                throw new MiroParserException("for ... to ... can only be applied to Numerics");
-            if (((Numeric) objectValue).getUnit() != Unit.NONE)
-                throw new MiroParserException("for ... to ... can only be applied to Numerics without a unit");
-
-            for (int index = 0; index < ((Numeric) objectValue).getNormalizedValue(); index++) {
-                Tokenizer forTokenizer = new Tokenizer(forContent);
-                Parser forParser = new Parser(forTokenizer);
-
-                SymbolTable fullSymbols = getFullSymbolTable();
-
-                for (String symbol : fullSymbols.getSymbols())
-                    forParser.setGlobal(symbol, fullSymbols.getSymbol(symbol));
-                for (MiroMixin mixin : fullSymbols.getMixins())
-                    forParser.setGlobal(mixin);
-
-                    forParser.setGlobal(key, new Numeric(index, Unit.NONE));
-                MiroStylesheet forStylesheet = forParser.parse();
-
-                for (Statement statement : forStylesheet.getStatements())
-                    stack.peek().addStatement(statement);
-
-                for (ImportRule importRule : forStylesheet.getImportRules())
-                    stack.peek().addImportRule(importRule);
-
-                for (Block block : forStylesheet.getBlocks())
-                    stack.peek().addBlock(block);
-
-                for (String symbol : forStylesheet.symbolTable().getSymbols())
-                    stack.peek().symbolTable().setSymbol(symbol, forStylesheet.symbolTable().getSymbol(symbol));
-            }
-
-        }
-        else
-            throw new MiroParserException("for ... " + operation + " ... is an unknown operation");
+        return new ForNode(key, value, operation, object, forContent);
     }
 
-    private void parseValueExtension (String extened) throws MiroException {
+    private Node parseValueExtension (String extended) throws MiroException {
+        ValueExtensionNode extension = new ValueExtensionNode(extended);
         optional(TokenType.COLON_TOKEN);
         consume(TokenType.NEWLINE_TOKEN);
         consume(TokenType.MIRO_INDENT_TOKEN);
         while (tokenizer.nextTokenType() != TokenType.MIRO_DEDENT_TOKEN
-                && tokenizer.nextTokenType() != TokenType.EOF) {
-            switch(extened) {
-                case "color":
-                    Color.addFunc(parseValueFunctionDeclaration());
-                    break;
-                case "bool":
-                case "boolean":
-                    Bool.addFunc(parseValueFunctionDeclaration());
-                    break;
-            }
-        }
+                && tokenizer.nextTokenType() != TokenType.EOF)
+            parseValueFunctionDeclaration(extension);
         if (tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN)
             consume(TokenType.MIRO_DEDENT_TOKEN);
         else
             consume(TokenType.EOF);
+        return extension;
     }
 
-    private MiroFunc parseValueFunctionDeclaration () throws MiroException {
+    private void parseValueFunctionDeclaration (ValueExtensionNode extension) throws MiroException {
         consumeNewlinesAndWhitespaces();
         String ident = consume(TokenType.IDENT_TOKEN);
         if (!"func".equals(ident))
@@ -1185,24 +921,10 @@ public class Parser {
         consumeWhitespaces();
         String functionName = consume(TokenType.FUNCTION_TOKEN);
         functionName = functionName.substring(0, functionName.length()-1);
-        MiroFunc func = new MiroFunc(functionName);
-
-        boolean startDefaultValues = false;
-        while (tokenizer.nextTokenType() != TokenType.C_R_TOKEN) {
-            consumeWhitespaces();
-            MiroFuncParameter parameter = parseMiroFuncDeclarationParameter();
-
-            if (startDefaultValues && parameter.getDefaultValue() == null)
-                throw new MiroMixinException("Seperate parameters with and without default values");
-
-            if (parameter.getDefaultValue() != null)
-                startDefaultValues = true;
-            func.addParameter(parameter);
-            consumeWhitespaces();
-            optional(TokenType.COMMA_TOKEN);
-            consumeWhitespaces();
-        }
 
+        List<String> parameterNames = new ArrayList<>();
+        List<Expression> defaultValues = new ArrayList<>();
+        parseDeclarationParameters(parameterNames, defaultValues);
 
         consume(TokenType.C_R_TOKEN);
         consumeWhitespaces();
@@ -1211,35 +933,21 @@ public class Parser {
         consume(TokenType.NEWLINE_TOKEN);
         consume(TokenType.MIRO_INDENT_TOKEN);
 
-        int indents = 0;
-        do {
-            if (tokenizer.nextTokenType() == TokenType.MIRO_INDENT_TOKEN)
-                indents++;
-            else if (tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN)
-                indents--;
-            func.addContent(tokenizer.getNext());
-        } while (!(indents == 0 && tokenizer.nextTokenType() == TokenType.MIRO_DEDENT_TOKEN) && !(tokenizer.nextTokenType() == TokenType.EOF));
+        ValueExtensionNode.FuncDeclaration func = extension.addFunction(functionName);
+        for (int i = 0; i < parameterNames.size(); i++)
+            func.addParameter(parameterNames.get(i), defaultValues.get(i));
+        TokenBuffer content = parseIndentedContent();
 
         if (tokenizer.nextTokenType() != TokenType.EOF)
             consume(TokenType.MIRO_DEDENT_TOKEN);
 
-
-        return func;
-    }
-
-    private MiroFuncParameter parseMiroFuncDeclarationParameter () throws MiroException {
-        consumeWhitespaces();
-        String name = consume(TokenType.IDENT_TOKEN);
-        MiroValue defaultValue = null;
-        consumeWhitespaces();
-
-        if (tokenizer.nextTokenType() == TokenType.EQUAL_TOKEN) {
-            consume(TokenType.EQUAL_TOKEN);
-            consumeWhitespaces();
-            defaultValue = parseValue(true);
-            consumeWhitespaces();
+        // Errors in the content are reported when the function is called, not when it is declared
+        Template template;
+        try {
+            template = new Parser(new Tokenizer(content), filePath).compile();
+        } catch (MiroException e) {
+            template = null;
         }
-
-        return new MiroFuncParameter(name, defaultValue);
+        func.setContent(content, template);
     }
 }
@@ -0,0 +1,22 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroException;
+
+/**
+ * $name = value
+ * @author Tamino Laub
+ */
+public class AssignmentNode implements Node {
+    private String name;
+    private Expression value;
+
+    public AssignmentNode (String name, Expression value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        context.peek().symbolTable().setSymbol(name, value.evaluate(context));
+    }
+}
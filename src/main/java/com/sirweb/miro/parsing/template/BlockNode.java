@@ -0,0 +1,35 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.miro.MiroBlock;
+import com.sirweb.miro.exceptions.MiroException;
+
+/**
+ * A css block with a (possibly interpolated) selector as header.
+ * @author Tamino Laub
+ */
+public class BlockNode implements Node {
+    private InterpolatedString header;
+    private Template content;
+    private boolean closes;
+
+    /**
+     * @param closes false if the block stays open for the code that follows it
+     *               (the parser keeps it on the stack if the next line is indented)
+     */
+    public BlockNode (InterpolatedString header, Template content, boolean closes) {
+        this.header = header;
+        this.content = content;
+        this.closes = closes;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        MiroBlock block = new MiroBlock(header.evaluate(context));
+
+        context.peek().addBlock(block);
+        context.push(block);
+        content.execute(context);
+        if (closes)
+            context.pop();
+    }
+}
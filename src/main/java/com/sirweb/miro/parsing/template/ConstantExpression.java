@@ -0,0 +1,22 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+
+/**
+ * A literal value like a number, a string, an ident or a color.
+ * @author Tamino Laub
+ */
+public class ConstantExpression implements Expression {
+    private MiroValue value;
+
+    public ConstantExpression (MiroValue value) {
+        this.value = value;
+    }
+
+    public MiroValue getValue () { return value; }
+
+    @Override
+    public MiroValue evaluate (Context context) {
+        return value;
+    }
+}
@@ -0,0 +1,101 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.Element;
+import com.sirweb.miro.ast.miro.MiroMixin;
+import com.sirweb.miro.parsing.FuncRegistry;
+import com.sirweb.miro.parsing.ImportCache;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.parsing.values.miro.SymbolTable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Stack;
+
+/**
+ * The state templates are executed in: the stack of elements that are currently open
+ * and the scope chain symbols are resolved in. Every open element adds its symbol table to the chain.
+ * @author Tamino Laub
+ */
+public class Context {
+    private Stack<Element> stack;
+    private Scope scope;
+    private String filePath;
+    private FuncRegistry functions;
+    private ImportCache imports;
+    private Map<String, String> dependencies;
+
+    public Context (SymbolTable globals, String filePath) {
+        this(globals, filePath, new FuncRegistry(), new ImportCache());
+    }
+
+    public Context (SymbolTable globals, String filePath, FuncRegistry functions, ImportCache imports) {
+        this.stack = new Stack<>();
+        this.scope = new Scope(globals, null);
+        this.filePath = filePath;
+        this.functions = functions;
+        this.imports = imports;
+        this.dependencies = new LinkedHashMap<>();
+    }
+
+    /**
+     * Creates a context that resolves everything it does not define itself in the current scope of the parent.
+     */
+    public Context (SymbolTable globals, Context parent) {
+        this(globals, parent, parent.getFilePath());
+    }
+
+    public Context (SymbolTable globals, Context parent, String filePath) {
+        this.stack = new Stack<>();
+        this.scope = new Scope(globals, parent.scope);
+        this.filePath = filePath;
+        this.functions = parent.functions;
+        this.imports = parent.imports;
+        this.dependencies = parent.dependencies;
+    }
+
+    public String getFilePath () { return filePath; }
+
+    public Scope scope () { return scope; }
+
+    public FuncRegistry functions () { return functions; }
+
+    public ImportCache imports () { return imports; }
+
+    /**
+     * @return the canonical paths of all files that were imported or used so far
+     *         mapped to the hash of the content that was read
+     */
+    public Map<String, String> dependencies () { return dependencies; }
+
+    /**
+     * @return the parsed content of an imported or used file, the file is added to the dependencies
+     */
+    public Template include (String filePath) throws MiroException {
+        return imports.get(filePath, dependencies);
+    }
+
+    public Element peek () { return stack.peek(); }
+
+    public void push (Element element) {
+        stack.push(element);
+        scope = new Scope(element.symbolTable(), scope);
+    }
+
+    public Element pop () {
+        scope = scope.parent();
+        return stack.pop();
+    }
+
+    public MiroValue findSymbol (String symbolName) {
+        return scope.findSymbol(symbolName);
+    }
+
+    public MiroMixin findMixin (String mixinName) {
+        return scope.findMixin(mixinName);
+    }
+
+    public SymbolTable getFullSymbolTable () {
+        return scope.flatten();
+    }
+}
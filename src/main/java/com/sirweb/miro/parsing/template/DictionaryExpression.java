@@ -0,0 +1,35 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.parsing.values.miro.Dictionary;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A dictionary literal, e.g. {small: 10px, large: 20px}
+ * @author Tamino Laub
+ */
+public class DictionaryExpression implements Expression {
+    private List<String> keys;
+    private List<Expression> values;
+
+    public DictionaryExpression () {
+        this.keys = new ArrayList<>();
+        this.values = new ArrayList<>();
+    }
+
+    public void addEntry (String key, Expression value) {
+        keys.add(key);
+        values.add(value);
+    }
+
+    @Override
+    public MiroValue evaluate (Context context) throws MiroException {
+        Dictionary dictionary = new Dictionary();
+        for (int i = 0; i < keys.size(); i++)
+            dictionary.setValue(keys.get(i), values.get(i).evaluate(context));
+        return dictionary;
+    }
+}
@@ -0,0 +1,12 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+
+/**
+ * A parsed value that is evaluated against the symbols visible in a context.
+ * @author Tamino Laub
+ */
+public interface Expression {
+    MiroValue evaluate (Context context) throws MiroException;
+}
@@ -0,0 +1,111 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.Block;
+import com.sirweb.miro.ast.ImportRule;
+import com.sirweb.miro.ast.Statement;
+import com.sirweb.miro.ast.miro.MiroStylesheet;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.exceptions.MiroParserException;
+import com.sirweb.miro.parsing.values.Unit;
+import com.sirweb.miro.parsing.values.miro.*;
+
+/**
+ * for key in value: ...
+ * for key, value in value: ...
+ * for index to value: ...
+ * The content is parsed once, every iteration executes it with only the loop variables bound.
+ * @author Tamino Laub
+ */
+public class ForNode implements Node {
+    private String key;
+    private String value;
+    private String operation;
+    private Expression object;
+    private Template content;
+
+    public ForNode (String key, String value, String operation, Expression object, Template content) {
+        this.key = key;
+        this.value = value;
+        this.operation = operation;
+        this.object = object;
+        this.content = content;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        MiroValue objectValue = object.evaluate(context);
+
+        if ("in".equals(operation)) {
+            if (objectValue instanceof List) {
+                int index = 0;
+                for (MiroValue currentValue : ((List) objectValue).getValues()) {
+                    if (value == null)
+                        iterate(context, currentValue, null);
+                    else
+                        iterate(context, new Numeric(index, Unit.NONE), currentValue);
+                    index++;
+                }
+            }
+            else if (objectValue instanceof StringValue) {
+                String string = ((StringValue) objectValue).getValue();
+                for (int index = 0; index < string.length(); index++) {
+                    if (value == null)
+                        iterate(context, new StringValue(string.charAt(index) + ""), null);
+                    else
+                        iterate(context, new Numeric(index, Unit.NONE), new StringValue(string.charAt(index) + ""));
+                }
+            }
+            else if (objectValue instanceof Dictionary) {
+                for (String keyIdent : ((Dictionary) objectValue).getKeys()) {
+                    if (value == null) {
+                        List valList = new List();
+                        valList.addValue(new Ident(keyIdent));
+                        valList.addValue(((Dictionary) objectValue).get(keyIdent));
+                        iterate(context, valList, null);
+                    }
+                    else
+                        iterate(context, new Ident(keyIdent), ((Dictionary) objectValue).get(keyIdent));
+                }
+            }
+            else
+                throw new MiroParserException("for ... in cannot be applied to value of type " + objectValue.getClass().getSimpleName());
+        }
+        else if ("to".equals(operation)) {
+            if (value != null)
+                throw new MiroParserException("for " + key + ", "+value+" to is not defined. for ... to ... only takes one index");
+            if (!(objectValue instanceof Numeric))
+                throw new MiroParserException("for ... to ... can only be applied to Numerics");
+            if (((Numeric) objectValue).getUnit() != Unit.NONE)
+                throw new MiroParserException("for ... to ... can only be applied to Numerics without a unit");
+
+            for (int index = 0; index < ((Numeric) objectValue).getNormalizedValue(); index++)
+                iterate(context, new Numeric(index, Unit.NONE), null);
+        }
+        else
+            throw new MiroParserException("for ... " + operation + " ... is an unknown operation");
+    }
+
+    private void iterate (Context context, MiroValue keyValue, MiroValue valueValue) throws MiroException {
+        SymbolTable loopSymbols = new SymbolTable();
+        loopSymbols.setSymbol(key, keyValue);
+        if (value != null)
+            loopSymbols.setSymbol(value, valueValue);
+
+        MiroStylesheet forStylesheet = new MiroStylesheet();
+        Context forContext = new Context(loopSymbols, context);
+        forContext.push(forStylesheet);
+        content.execute(forContext);
+
+        for (Statement statement : forStylesheet.getStatements())
+            context.peek().addStatement(statement);
+
+        for (ImportRule importRule : forStylesheet.getImportRules())
+            context.peek().addImportRule(importRule);
+
+        for (Block block : forStylesheet.getBlocks())
+            context.peek().addBlock(block);
+
+        for (String symbol : forStylesheet.symbolTable().getSymbols())
+            context.peek().symbolTable().setSymbol(symbol, forStylesheet.symbolTable().getSymbol(symbol));
+    }
+}
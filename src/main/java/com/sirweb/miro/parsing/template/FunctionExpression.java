@@ -0,0 +1,50 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.exceptions.MiroParserException;
+import com.sirweb.miro.parsing.values.Unit;
+import com.sirweb.miro.parsing.values.miro.*;
+
+/**
+ * A css function call like translate(10px, 20px).
+ * rgb() and rgba() are evaluated to colors.
+ * @author Tamino Laub
+ */
+public class FunctionExpression implements Expression {
+    private String name;
+    private Expression parameters;
+
+    public FunctionExpression (String name, Expression parameters) {
+        this.name = name;
+        this.parameters = parameters;
+    }
+
+    @Override
+    public MiroValue evaluate (Context context) throws MiroException {
+        MiroValue parsedParameter = parameters == null ? null : parameters.evaluate(context);
+
+        MultiValue multiValue;
+        if (parsedParameter instanceof MultiValue)
+            multiValue = (MultiValue) parsedParameter;
+        else {
+            multiValue = new MultiValue();
+            multiValue.addValue(parsedParameter);
+        }
+
+        if ("rgb".equals(name)) {
+            checkNumerics(multiValue);
+            return Color.valueOf((Numeric) multiValue.get(0), (Numeric) multiValue.get(1), (Numeric) multiValue.get(2), new Numeric(255, Unit.NONE));
+        }
+        else if ("rgba".equals(name)) {
+            checkNumerics(multiValue);
+            return Color.valueOf((Numeric) multiValue.get(0), (Numeric) multiValue.get(1), (Numeric) multiValue.get(2), (Numeric) multiValue.get(3));
+        }
+        return new Function(name, multiValue);
+    }
+
+    private void checkNumerics (MultiValue multiValue) throws MiroParserException {
+        for (MiroValue val : multiValue.getValues())
+            if (!(val instanceof Numeric))
+                throw new MiroParserException("Cannot create Color from " + val.getClass().getSimpleName());
+    }
+}
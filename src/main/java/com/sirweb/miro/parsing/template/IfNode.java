@@ -0,0 +1,27 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroException;
+
+/**
+ * if condition: ... else: ...
+ * @author Tamino Laub
+ */
+public class IfNode implements Node {
+    private Expression condition;
+    private Template then;
+    private Template otherwise;
+
+    public IfNode (Expression condition, Template then, Template otherwise) {
+        this.condition = condition;
+        this.then = then;
+        this.otherwise = otherwise;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        if (condition.evaluate(context).getBoolean())
+            then.execute(context);
+        else if (otherwise != null)
+            otherwise.execute(context);
+    }
+}
@@ -0,0 +1,83 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.Block;
+import com.sirweb.miro.ast.ImportRule;
+import com.sirweb.miro.ast.Statement;
+import com.sirweb.miro.ast.miro.MiroImportRule;
+import com.sirweb.miro.ast.miro.MiroMixin;
+import com.sirweb.miro.ast.miro.MiroStylesheet;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.exceptions.MiroImportException;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+import com.sirweb.miro.parsing.values.miro.StringValue;
+import com.sirweb.miro.parsing.values.miro.SymbolTable;
+import com.sirweb.miro.parsing.values.miro.Url;
+
+import java.io.File;
+
+/**
+ * @import url
+ * Miro files are parsed and included, every other url is kept as css import rule.
+ * @author Tamino Laub
+ */
+public class ImportNode implements Node {
+    private Expression url;
+
+    public ImportNode (Expression url) {
+        this.url = url;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        MiroValue urlValue = url.evaluate(context);
+
+        boolean isMiroImport = false;
+        if (urlValue instanceof StringValue) {
+            if (((StringValue) urlValue).getValue().endsWith(".miro"))
+                isMiroImport = true;
+            else
+                context.peek().addImportRule(new MiroImportRule(urlValue));
+        }
+        else if (urlValue instanceof Url) {
+            if (((Url) urlValue).getUrl().endsWith(".miro"))
+                isMiroImport = true;
+            else
+                context.peek().addImportRule(new MiroImportRule(urlValue));
+        }
+        else
+            throw new MiroImportException("Cannot import file from value type " + urlValue.getClass().getSimpleName());
+
+        if (!isMiroImport)
+            return;
+
+        String importUrl = (urlValue instanceof StringValue) ? ((StringValue) urlValue).getValue() : ((Url) urlValue).getUrl();
+
+        if (!(importUrl.startsWith("/")
+            || importUrl.startsWith("http"))) {
+            String[] partElems = context.getFilePath().split("/");
+            for (int i = partElems.length - 2; i >= 0; i--)
+                importUrl = partElems[i] + "/" + importUrl;
+        }
+        File importFile = new File(importUrl);
+        if (!(importFile.exists() && !importFile.isDirectory()))
+            throw new MiroImportException("The specified file " + importUrl + " could not be found");
+
+        MiroStylesheet tempStylesheet = new MiroStylesheet();
+        Context importContext = new Context(new SymbolTable(), context, importUrl);
+        importContext.push(tempStylesheet);
+        context.include(importUrl).execute(importContext);
+
+        for (String symbol : tempStylesheet.symbolTable().getSymbols())
+            context.peek().symbolTable().setSymbol(symbol, tempStylesheet.symbolTable().getSymbol(symbol));
+
+        for (MiroMixin mixin : tempStylesheet.symbolTable().getMixins())
+            context.peek().symbolTable().addMixin(mixin);
+
+        for (Block block : tempStylesheet.getBlocks())
+            context.peek().addBlock(block);
+        for (Statement statement : tempStylesheet.getStatements())
+            context.peek().addStatement(statement);
+        for (ImportRule importRule : tempStylesheet.getImportRules())
+            context.peek().addImportRule(importRule);
+    }
+}
@@ -0,0 +1,41 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text that may contain interpolations like ${$name}, e.g. block and media query headers.
+ * @author Tamino Laub
+ */
+public class InterpolatedString {
+    private List<Object> parts;
+
+    public InterpolatedString () {
+        this.parts = new ArrayList<>();
+    }
+
+    public void addText (String text) {
+        if (!parts.isEmpty() && parts.get(parts.size() - 1) instanceof String)
+            parts.set(parts.size() - 1, parts.get(parts.size() - 1) + text);
+        else
+            parts.add(text);
+    }
+
+    public void addInterpolation (Expression expression) { parts.add(expression); }
+
+    public String evaluate (Context context) throws MiroException {
+        if (parts.size() == 1 && parts.get(0) instanceof String)
+            return (String) parts.get(0);
+
+        StringBuilder result = new StringBuilder();
+        for (Object part : parts) {
+            if (part instanceof Expression)
+                result.append(((Expression) part).evaluate(context));
+            else
+                result.append(part);
+        }
+        return result.toString();
+    }
+}
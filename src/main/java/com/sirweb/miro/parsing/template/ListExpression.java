@@ -0,0 +1,32 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.parsing.values.miro.List;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+import com.sirweb.miro.parsing.values.miro.MultiValue;
+
+/**
+ * A list literal, e.g. [1px, 2px]
+ * @author Tamino Laub
+ */
+public class ListExpression implements Expression {
+    private Expression content;
+
+    public ListExpression (Expression content) {
+        this.content = content;
+    }
+
+    @Override
+    public MiroValue evaluate (Context context) throws MiroException {
+        List list = new List();
+        if (content != null) {
+            MiroValue value = content.evaluate(context);
+            if (value instanceof MultiValue)
+                for (MiroValue v : ((MultiValue) value).getValues())
+                    list.addValue(v);
+            else
+                list.addValue(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,103 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.miro.MiroBlock;
+import com.sirweb.miro.ast.miro.MiroMediaQuery;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.exceptions.MiroParserException;
+import com.sirweb.miro.parsing.values.miro.Ident;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+import com.sirweb.miro.parsing.values.miro.Numeric;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @if (width <= 500px) and (orientation is landscape): ...
+ * @author Tamino Laub
+ */
+public class MediaIfNode implements Node {
+    private List<String> properties;
+    private List<String> comparisonOperators;
+    private List<Expression> values;
+    private List<String> connectives;
+    private Template content;
+
+    public MediaIfNode () {
+        this.properties = new ArrayList<>();
+        this.comparisonOperators = new ArrayList<>();
+        this.values = new ArrayList<>();
+        this.connectives = new ArrayList<>();
+    }
+
+    public void addArgument (String property, String comparisonOperator, Expression value) {
+        properties.add(property);
+        comparisonOperators.add(comparisonOperator);
+        values.add(value);
+    }
+
+    /**
+     * @param connective the css that joins the previous and the next argument (" and " or ", ")
+     */
+    public void addConnective (String connective) { connectives.add(connective); }
+
+    public void setContent (Template content) { this.content = content; }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        String mediaString = "";
+        for (int i = 0; i < properties.size(); i++) {
+            mediaString += argument(properties.get(i), comparisonOperators.get(i), values.get(i).evaluate(context));
+            if (i < connectives.size())
+                mediaString += connectives.get(i);
+        }
+
+        MiroBlock block = new MiroMediaQuery(mediaString);
+
+        context.peek().addBlock(block);
+        context.push(block);
+        content.execute(context);
+        context.pop();
+    }
+
+    private String argument (String property, String comparisonOperator, MiroValue value) throws MiroException {
+        if ("width".equals(property) || "device-width".equals(property) || "device-height".equals(property) || "color".equals(property) || "color-index".equals(property) || "monochrome".equals(property) || "grid".equals(property)) {
+            if (!(value instanceof Numeric))
+                throw new MiroParserException("Media-if property '"+property+"' only takes values of type Number");
+
+            if ("<=".equals(comparisonOperator))
+                return "(max-"+property+": " + value.toString() + ")";
+            else if (">=".equals(comparisonOperator))
+                return "(min-"+property+": " + value.toString() + ")";
+            else if ("<".equals(comparisonOperator))
+                return "(max-"+property+": " + (((Numeric) value).getValue() - 1) + ((Numeric) value).getUnit() + ")";
+            else if (">".equals(comparisonOperator))
+                return "(min-"+property+": " + (((Numeric) value).getValue() + 1) + ((Numeric) value).getUnit() + ")";
+            else if ("==".equals(comparisonOperator))
+                return "("+property+": " + value.toString() + ")";
+            else
+                throw new MiroParserException("Media-if property '"+property+"' cannot deal with comparison operator '"+comparisonOperator+"'");
+        }
+        else if ("orientation".equals(property) || "light-level".equals(property) || "pointer".equals(property)) {
+            if (!(value instanceof Ident))
+                throw new MiroException("Media-if property '"+property+"' only takes values of type Ident");
+
+            if ("==".equals(comparisonOperator))
+                return "("+property+": " + value.toString() + ")";
+            else
+                throw new MiroException("Media-if property '"+property+"' cannot deal with comparison operator '"+comparisonOperator+"'");
+        }
+        else if ("media".equals(property)) {
+            if (!(value instanceof Ident))
+                throw new MiroException("Media-if property 'media' only takes values of type Ident");
+
+            if ("==".equals(comparisonOperator))
+                return value.toString();
+            else if ("has".equals(comparisonOperator))
+                return "(" + value.toString()  + ")";
+            else
+                throw new MiroParserException("Media-if property 'media' cannot deal with comparison operator '"+comparisonOperator+"'");
+        }
+        else
+            throw new MiroParserException("Unknown Media-if property '" + property + "'");
+    }
+}
@@ -0,0 +1,29 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.miro.MiroBlock;
+import com.sirweb.miro.ast.miro.MiroMediaQuery;
+import com.sirweb.miro.exceptions.MiroException;
+
+/**
+ * @media ...
+ * @author Tamino Laub
+ */
+public class MediaQueryNode implements Node {
+    private InterpolatedString query;
+    private Template content;
+
+    public MediaQueryNode (InterpolatedString query, Template content) {
+        this.query = query;
+        this.content = content;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        MiroBlock block = new MiroMediaQuery(query.evaluate(context));
+
+        context.peek().addBlock(block);
+        context.push(block);
+        content.execute(context);
+        context.pop();
+    }
+}
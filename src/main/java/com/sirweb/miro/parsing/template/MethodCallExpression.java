@@ -0,0 +1,83 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.miro.MiroFunc;
+import com.sirweb.miro.ast.miro.MiroFuncParameter;
+import com.sirweb.miro.ast.miro.MiroStylesheet;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.exceptions.MiroMixinException;
+import com.sirweb.miro.exceptions.MiroUnimplementedFuncException;
+import com.sirweb.miro.lexer.Tokenizer;
+import com.sirweb.miro.parsing.Parser;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+import com.sirweb.miro.parsing.values.miro.MultiValue;
+import com.sirweb.miro.parsing.values.miro.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A function called on a value, e.g. $color.setRed(20)
+ * Built in functions of the value take precedence over functions added by a value extension.
+ * @author Tamino Laub
+ */
+public class MethodCallExpression implements Expression {
+    private Expression target;
+    private String functionName;
+    private Expression parameters;
+
+    public MethodCallExpression (Expression target, String functionName, Expression parameters) {
+        this.target = target;
+        this.functionName = functionName;
+        this.parameters = parameters;
+    }
+
+    @Override
+    public MiroValue evaluate (Context context) throws MiroException {
+        MiroValue value = target.evaluate(context);
+        MiroValue parameterValue = parameters == null ? null : parameters.evaluate(context);
+
+        List<MiroValue> parameterList = new ArrayList<>();
+        if (parameterValue instanceof MultiValue) {
+            for (int i = 0; i < ((MultiValue) parameterValue).size(); i++)
+                parameterList.add(((MultiValue) parameterValue).get(i));
+        }
+        else if (parameterValue != null)
+            parameterList.add(parameterValue);
+
+        try {
+            return (MiroValue) value.callFunc(functionName, parameterList);
+        } catch (MiroUnimplementedFuncException e) {
+            MiroFunc func = context.functions().getFunc(value.getClass(), functionName);
+            if (func == null)
+                throw e;
+            return callExtension(context, func, value, parameterList);
+        }
+    }
+
+    private MiroValue callExtension (Context context, MiroFunc func, MiroValue value, List<MiroValue> parameters) throws MiroException {
+        int neededParameters = 0;
+        for (MiroFuncParameter param : func.getParameters())
+            if (param.getDefaultValue() == null)
+                neededParameters++;
+
+        if (parameters.size() < neededParameters)
+            throw new MiroMixinException("Func " + value.getClass().getSimpleName() + "." + functionName + " takes " + neededParameters + " parameters but " + parameters.size() + " were passed");
+
+        SymbolTable arguments = new SymbolTable();
+        for (int i = 0; i < func.getParameterCount(); i++) {
+            MiroFuncParameter param = func.getParameter(i);
+            arguments.setSymbol(param.getName(), i < parameters.size() ? parameters.get(i) : param.getDefaultValue());
+        }
+        arguments.setSymbol("this", value);
+
+        MiroStylesheet result = new MiroStylesheet();
+        Context funcContext = new Context(arguments, context);
+        funcContext.push(result);
+        Template template = func.getTemplate();
+        if (template == null)
+            template = new Parser(new Tokenizer(func.getContent()), context.getFilePath()).compile();
+        template.execute(funcContext);
+
+        return result.symbolTable().getSymbol("this");
+    }
+}
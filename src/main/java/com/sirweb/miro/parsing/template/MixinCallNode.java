@@ -0,0 +1,98 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.Block;
+import com.sirweb.miro.ast.Statement;
+import com.sirweb.miro.ast.miro.MiroMixin;
+import com.sirweb.miro.ast.miro.MiroMixinParameter;
+import com.sirweb.miro.ast.miro.MiroStylesheet;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.exceptions.MiroMixinException;
+import com.sirweb.miro.exceptions.MiroParserException;
+import com.sirweb.miro.lexer.Tokenizer;
+import com.sirweb.miro.parsing.Parser;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+import com.sirweb.miro.parsing.values.miro.MultiValue;
+import com.sirweb.miro.parsing.values.miro.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * $name(arguments)
+ * @author Tamino Laub
+ */
+public class MixinCallNode implements Node {
+    private String mixinName;
+    private Expression arguments;
+
+    public MixinCallNode (String mixinName, Expression arguments) {
+        this.mixinName = mixinName;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        MiroValue parameterValue = arguments == null ? null : arguments.evaluate(context);
+
+        MiroMixin mixin = context.findMixin(mixinName);
+
+        if (mixin == null)
+            throw new MiroParserException("Unknown mixin with name '"+mixinName+"'");
+
+        int parameterCount;
+
+        if (parameterValue instanceof MultiValue)
+            parameterCount = ((MultiValue) parameterValue).size();
+        else if (parameterValue == null)
+            parameterCount = 0;
+        else
+            parameterCount = 1;
+
+        int neededParameters = 0;
+        for (MiroMixinParameter param : mixin.getParameters())
+            if (param.getDefaultValue() == null)
+                neededParameters++;
+
+        if (parameterCount < neededParameters)
+            throw new MiroMixinException("Mixin " + mixinName + " takes " + mixin.getParameterCount() + " parameters but " + parameterCount + " were passed");
+
+        List<MiroValue> parameterValueList = new ArrayList<>();
+
+        int i = 0;
+        if (parameterCount == 1) {
+            parameterValueList.add(parameterValue);
+            i++;
+        }
+        else if (parameterCount > 1) {
+            for (MiroValue v : ((MultiValue) parameterValue).getValues()) {
+                parameterValueList.add(v);
+                i++;
+            }
+        }
+        for (; i < mixin.getParameterCount(); i++)
+            parameterValueList.add(mixin.getParameter(i).getDefaultValue());
+
+        Template template = mixin.getTemplate();
+        if (template == null)
+            template = new Parser(new Tokenizer(mixin.getContent())).compile();
+
+        SymbolTable parameters = new SymbolTable();
+
+        int paramIndex = 0;
+        for (MiroMixinParameter param : mixin.getParameters()) {
+            parameters.setSymbol(param.getName(), parameterValueList.get(paramIndex));
+            paramIndex++;
+        }
+
+        MiroStylesheet mixinStylesheet = new MiroStylesheet();
+        Context mixinContext = new Context(parameters, context);
+        mixinContext.push(mixinStylesheet);
+        template.execute(mixinContext);
+
+        for (Statement statement : mixinStylesheet.getStatements())
+            context.peek().addStatement(statement);
+
+        for (Block block : mixinStylesheet.getBlocks())
+            context.peek().addBlock(block);
+    }
+}
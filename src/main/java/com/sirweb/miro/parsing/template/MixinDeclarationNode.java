@@ -0,0 +1,53 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.miro.MiroMixin;
+import com.sirweb.miro.ast.miro.MiroMixinParameter;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.lexer.TokenBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * $name(parameters)
+ *     content
+ * The content is parsed once when the declaration is parsed and only executed on every call.
+ * @author Tamino Laub
+ */
+public class MixinDeclarationNode implements Node {
+    private String name;
+    private List<String> parameterNames;
+    private List<Expression> defaultValues;
+    private TokenBuffer content;
+    private Template template;
+
+    /**
+     * @param template the parsed content or null if the content could not be parsed.
+     *                 In that case the error is raised when the mixin is called.
+     */
+    public MixinDeclarationNode (String name, TokenBuffer content, Template template) {
+        this.name = name;
+        this.content = content;
+        this.template = template;
+        this.parameterNames = new ArrayList<>();
+        this.defaultValues = new ArrayList<>();
+    }
+
+    public void addParameter (String name, Expression defaultValue) {
+        parameterNames.add(name);
+        defaultValues.add(defaultValue);
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        MiroMixin mixin = new MiroMixin(name);
+        for (int i = 0; i < parameterNames.size(); i++) {
+            Expression defaultValue = defaultValues.get(i);
+            mixin.addParameter(new MiroMixinParameter(parameterNames.get(i), defaultValue == null ? null : defaultValue.evaluate(context)));
+        }
+        mixin.setContent(content);
+        mixin.setTemplate(template);
+
+        context.peek().symbolTable().addMixin(mixin);
+    }
+}
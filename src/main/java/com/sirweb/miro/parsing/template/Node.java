@@ -0,0 +1,13 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroException;
+
+/**
+ * A parsed piece of Miro code that can be executed any number of times.
+ * Executing a node adds its result (blocks, statements, symbols, ...) to the element
+ * on top of the stack of the given context.
+ * @author Tamino Laub
+ */
+public interface Node {
+    void execute (Context context) throws MiroException;
+}
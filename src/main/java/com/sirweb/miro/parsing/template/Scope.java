@@ -0,0 +1,50 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.miro.MiroMixin;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+import com.sirweb.miro.parsing.values.miro.SymbolTable;
+
+/**
+ * One link of a scope chain. Every scope only knows its own symbols and its parent,
+ * so a scope can be shared by any number of child scopes without copying it.
+ * @author Tamino Laub
+ */
+public class Scope {
+    private SymbolTable symbols;
+    private Scope parent;
+
+    public Scope (SymbolTable symbols, Scope parent) {
+        this.symbols = symbols;
+        this.parent = parent;
+    }
+
+    public SymbolTable symbols () { return symbols; }
+
+    public Scope parent () { return parent; }
+
+    public MiroValue findSymbol (String symbolName) {
+        for (Scope scope = this; scope != null; scope = scope.parent)
+            if (scope.symbols.hasSymbol(symbolName))
+                return scope.symbols.getSymbol(symbolName);
+        return null;
+    }
+
+    public MiroMixin findMixin (String mixinName) {
+        for (Scope scope = this; scope != null; scope = scope.parent)
+            if (scope.symbols.hasMixin(mixinName))
+                return scope.symbols.getMixin(mixinName);
+        return null;
+    }
+
+    /**
+     * @return a new table with every symbol visible from this scope
+     */
+    public SymbolTable flatten () {
+        SymbolTable sm = new SymbolTable();
+        for (Scope scope = this; scope != null; scope = scope.parent)
+            for (String key : scope.symbols.getSymbols())
+                if (!sm.hasSymbol(key))
+                    sm.setSymbol(key, scope.symbols.getSymbol(key));
+        return sm;
+    }
+}
@@ -0,0 +1,25 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.miro.MiroStatement;
+import com.sirweb.miro.exceptions.MiroException;
+
+/**
+ * A css statement like color: red
+ * @author Tamino Laub
+ */
+public class StatementNode implements Node {
+    private String property;
+    private Expression value;
+    private boolean important;
+
+    public StatementNode (String property, Expression value, boolean important) {
+        this.property = property;
+        this.value = value;
+        this.important = important;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        context.peek().addStatement(new MiroStatement(property, value.evaluate(context), important));
+    }
+}
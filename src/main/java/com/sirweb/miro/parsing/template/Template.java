@@ -0,0 +1,30 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of nodes, e.g. the content of a block or the body of a mixin.
+ * @author Tamino Laub
+ */
+public class Template implements Node {
+    private List<Node> nodes;
+
+    public Template () {
+        this.nodes = new ArrayList<>();
+    }
+
+    public void addNode (Node node) { nodes.add(node); }
+
+    public Iterable<Node> getNodes () { return nodes; }
+
+    public boolean isEmpty () { return nodes.isEmpty(); }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        for (Node node : nodes)
+            node.execute(context);
+    }
+}
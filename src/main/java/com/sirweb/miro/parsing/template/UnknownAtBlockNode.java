@@ -0,0 +1,28 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.miro.MiroBlock;
+import com.sirweb.miro.exceptions.MiroException;
+
+/**
+ * An at-rule Miro does not know, which is passed through as a block, e.g. @font-face
+ * @author Tamino Laub
+ */
+public class UnknownAtBlockNode implements Node {
+    private String header;
+    private Template content;
+
+    public UnknownAtBlockNode (String header, Template content) {
+        this.header = header;
+        this.content = content;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        MiroBlock block = new MiroBlock(header);
+
+        context.peek().addBlock(block);
+        context.push(block);
+        content.execute(context);
+        context.pop();
+    }
+}
@@ -0,0 +1,31 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.miro.MiroStylesheet;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.parsing.values.miro.SymbolTable;
+
+/**
+ * @use 'file.miro' makes the variables of another file available
+ * @author Tamino Laub
+ */
+public class UseNode implements Node {
+    private String filePath;
+
+    public UseNode (String filePath) {
+        this.filePath = filePath;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        MiroStylesheet miroStylesheet = new MiroStylesheet();
+        Context useContext = new Context(new SymbolTable(), filePath, context.functions(), context.imports());
+        useContext.push(miroStylesheet);
+        context.include(filePath).execute(useContext);
+        context.dependencies().putAll(useContext.dependencies());
+
+        SymbolTable st = miroStylesheet.symbolTable();
+
+        for (String symbol : st.getSymbols())
+            context.peek().symbolTable().setSymbol(symbol, st.getSymbol(symbol));
+    }
+}
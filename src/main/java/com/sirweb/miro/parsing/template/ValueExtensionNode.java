@@ -0,0 +1,89 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.ast.miro.MiroFunc;
+import com.sirweb.miro.ast.miro.MiroFuncParameter;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.lexer.TokenBuffer;
+import com.sirweb.miro.parsing.values.miro.Bool;
+import com.sirweb.miro.parsing.values.miro.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @color
+ *     func name(parameters):
+ *         content
+ * Adds functions to a value type. The content of a function is parsed once when the declaration is parsed.
+ * @author Tamino Laub
+ */
+public class ValueExtensionNode implements Node {
+    private String extended;
+    private List<FuncDeclaration> functions;
+
+    public ValueExtensionNode (String extended) {
+        this.extended = extended;
+        this.functions = new ArrayList<>();
+    }
+
+    public FuncDeclaration addFunction (String name) {
+        FuncDeclaration function = new FuncDeclaration(name);
+        functions.add(function);
+        return function;
+    }
+
+    @Override
+    public void execute (Context context) throws MiroException {
+        for (FuncDeclaration declaration : functions) {
+            MiroFunc func = declaration.create(context);
+            switch (extended) {
+                case "color":
+                    context.functions().addFunc(Color.class, func);
+                    break;
+                case "bool":
+                case "boolean":
+                    context.functions().addFunc(Bool.class, func);
+                    break;
+            }
+        }
+    }
+
+    public static class FuncDeclaration {
+        private String name;
+        private TokenBuffer content;
+        private Template template;
+        private List<String> parameterNames;
+        private List<Expression> defaultValues;
+
+        private FuncDeclaration (String name) {
+            this.name = name;
+            this.parameterNames = new ArrayList<>();
+            this.defaultValues = new ArrayList<>();
+        }
+
+        public void addParameter (String name, Expression defaultValue) {
+            parameterNames.add(name);
+            defaultValues.add(defaultValue);
+        }
+
+        /**
+         * @param template the parsed content or null if the content could not be parsed.
+         *                 In that case the error is raised when the function is called.
+         */
+        public void setContent (TokenBuffer content, Template template) {
+            this.content = content;
+            this.template = template;
+        }
+
+        private MiroFunc create (Context context) throws MiroException {
+            MiroFunc func = new MiroFunc(name);
+            for (int i = 0; i < parameterNames.size(); i++) {
+                Expression defaultValue = defaultValues.get(i);
+                func.addParameter(new MiroFuncParameter(parameterNames.get(i), defaultValue == null ? null : defaultValue.evaluate(context)));
+            }
+            func.setContent(content);
+            func.setTemplate(template);
+            return func;
+        }
+    }
+}
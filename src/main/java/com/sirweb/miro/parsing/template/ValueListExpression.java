@@ -0,0 +1,37 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.parsing.values.miro.List;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+import com.sirweb.miro.parsing.values.miro.MultiValue;
+
+/**
+ * Several values separated by whitespaces (evaluates to a List) or by commas (evaluates to a MultiValue).
+ * @author Tamino Laub
+ */
+public class ValueListExpression implements Expression {
+    private java.util.List<Expression> values;
+    private boolean whitespaceSeparated;
+
+    public ValueListExpression (java.util.List<Expression> values, boolean whitespaceSeparated) {
+        this.values = values;
+        this.whitespaceSeparated = whitespaceSeparated;
+    }
+
+    @Override
+    public MiroValue evaluate (Context context) throws MiroException {
+        if (whitespaceSeparated) {
+            List list = new List();
+            for (Expression value : values)
+                list.addValue(value.evaluate(context));
+            return list;
+        }
+        if (values.size() == 1)
+            return values.get(0).evaluate(context);
+
+        MultiValue multiValue = new MultiValue();
+        for (Expression value : values)
+            multiValue.addValue(value.evaluate(context));
+        return multiValue;
+    }
+}
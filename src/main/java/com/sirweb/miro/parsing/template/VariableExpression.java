@@ -0,0 +1,26 @@
+package com.sirweb.miro.parsing.template;
+
+import com.sirweb.miro.exceptions.MiroParserException;
+import com.sirweb.miro.parsing.values.miro.MiroValue;
+
+/**
+ * A reference to a variable, e.g. $size
+ * @author Tamino Laub
+ */
+public class VariableExpression implements Expression {
+    private String name;
+
+    public VariableExpression (String name) {
+        this.name = name;
+    }
+
+    public String getName () { return name; }
+
+    @Override
+    public MiroValue evaluate (Context context) throws MiroParserException {
+        MiroValue value = context.findSymbol(name);
+        if (value == null)
+            throw new MiroParserException("Unknown variable '$" + name + "'");
+        return value;
+    }
+}
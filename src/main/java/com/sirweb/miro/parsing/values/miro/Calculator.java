@@ -4,22 +4,29 @@ import com.sirweb.miro.Miro;
 import com.sirweb.miro.exceptions.*;
 import com.sirweb.miro.lexer.Token;
 import com.sirweb.miro.lexer.TokenType;
-import com.sirweb.miro.lexer.Tokenizer;
+import com.sirweb.miro.lexer.TokenStream;
 import com.sirweb.miro.parsing.Parser;
+import com.sirweb.miro.parsing.template.ConstantExpression;
+import com.sirweb.miro.parsing.template.Context;
+import com.sirweb.miro.parsing.template.Expression;
+import com.sirweb.miro.parsing.template.VariableExpression;
 import com.sirweb.miro.parsing.values.Unit;
 import com.sirweb.miro.parsing.values.Value;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 
-public class Calculator implements MiroValue {
-
-    @Override
-    public Value callFunc(String functionName, List<MiroValue> parameters) throws MiroUnimplementedFuncException, MiroFuncParameterException {
-        return null;
-    }
+/**
+ * Compiles a calculation into an immutable postfix program once, it can be evaluated in any context afterwards.
+ * The program does not keep a reference to the parser and can be evaluated by several threads at the same time.
+ * Mixins, loops and value functions parse their content once when they are declared, their templates keep
+ * the compiled calculations and only evaluate them on every call or iteration.
+ * @author Tamino Laub
+ */
+public class Calculator implements Expression {
 
     public enum Operator {
         AND(1),
@@ -73,25 +80,159 @@ public class Calculator implements MiroValue {
         }
     }
 
-    private Tokenizer tokenizer;
-    private Parser parser;
-    private List<Object> postfix;
+    // Kinds of the entries on the evaluation stack
+    private static final byte NUMERIC = 0;
+    private static final byte BOOL = 1;
+    private static final byte VALUE = 2;
+
+    // Instructions of the compiled program
+    private static final byte PUSH_OPERAND = 0;
+    private static final byte PUSH_VARIABLE = 1;
+    private static final byte APPLY = 2;
+
+    private static final Operator[] OPERATORS = Operator.values();
+
+    private final byte[] instructions;
+    // Index of the operand, slot of the variable or ordinal of the operator of each instruction
+    private final int[] arguments;
+    private final Expression[] operands;
+    // Every variable is looked up once per evaluation, even if the calculation uses it several times
+    private final String[] variables;
+    private final int maxDepth;
 
     public Calculator (Parser parser) throws MiroException {
         this(parser, false);
     }
 
     public Calculator (Parser parser, boolean openedByBracket) throws MiroException {
-        this.parser = parser;
-        this.tokenizer = parser.tokenizer();
-        this.postfix = new ArrayList<>();
-        parseCalculation(openedByBracket);
+        this(parseCalculation(parser, openedByBracket));
     }
 
-    public List<Object> getPostfix () { return postfix; }
+    private Calculator (List<Object> postfix) {
+
+        List<Expression> operands = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        instructions = new byte[postfix.size()];
+        arguments = new int[postfix.size()];
+        int depth = 0;
+        int maxDepth = 0;
+        for (int i = 0; i < postfix.size(); i++) {
+            Object element = postfix.get(i);
+            if (element instanceof Operator) {
+                instructions[i] = APPLY;
+                arguments[i] = ((Operator) element).ordinal();
+                depth--;
+            }
+            else if (element instanceof VariableExpression) {
+                String name = ((VariableExpression) element).getName();
+                if (!variables.contains(name))
+                    variables.add(name);
+                instructions[i] = PUSH_VARIABLE;
+                arguments[i] = variables.indexOf(name);
+                depth++;
+            }
+            else {
+                instructions[i] = PUSH_OPERAND;
+                arguments[i] = operands.size();
+                operands.add((Expression) element);
+                depth++;
+            }
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        this.operands = operands.toArray(new Expression[0]);
+        this.variables = variables.toArray(new String[0]);
+        this.maxDepth = maxDepth;
+    }
 
-    private void parseCalculation(boolean openedByBracket) throws MiroException {
-        Stack<Operator> operators = new Stack<>();
+    /**
+     * @return the postfix notation with all operands evaluated without any variables
+     */
+    public List<Object> getPostfix () throws MiroException {
+        Context context = emptyContext();
+        List<Object> evaluated = new ArrayList<>();
+        for (int i = 0; i < instructions.length; i++) {
+            if (instructions[i] == APPLY)
+                evaluated.add(OPERATORS[arguments[i]]);
+            else if (instructions[i] == PUSH_VARIABLE)
+                evaluated.add(new VariableExpression(variables[arguments[i]]).evaluate(context));
+            else
+                evaluated.add(operands[arguments[i]].evaluate(context));
+        }
+        return evaluated;
+    }
+
+    /**
+     * Calculates every part of the calculation whose operands are literals once, e.g. (4px * 2) / 4 becomes 2px.
+     * @return a constant if the whole calculation is known before it is evaluated
+     */
+    public Expression fold () {
+        List<Object> postfix = new ArrayList<>();
+        for (int i = 0; i < instructions.length; i++) {
+            if (instructions[i] == APPLY)
+                postfix.add(OPERATORS[arguments[i]]);
+            else if (instructions[i] == PUSH_VARIABLE)
+                postfix.add(new VariableExpression(variables[arguments[i]]));
+            else
+                postfix.add(operands[arguments[i]]);
+        }
+
+        List<Object> folded = fold(postfix);
+        if (folded.size() == 1 && folded.get(0) instanceof ConstantExpression)
+            return (Expression) folded.get(0);
+        return folded.size() == postfix.size() ? this : new Calculator(folded);
+    }
+
+    /**
+     * Parts that fail are kept, so their error is still reported when they are evaluated.
+     */
+    private List<Object> fold (List<Object> postfix) {
+        Deque<List<Object>> parts = new ArrayDeque<>();
+        for (Object element : postfix) {
+            if (!(element instanceof Operator)) {
+                List<Object> part = new ArrayList<>();
+                part.add(element);
+                parts.push(part);
+                continue;
+            }
+            if (parts.size() < 2)
+                return postfix;
+
+            List<Object> right = parts.pop();
+            List<Object> left = parts.pop();
+            MiroValue val1 = constantOf(left);
+            MiroValue val2 = constantOf(right);
+            if (val1 != null && val2 != null) {
+                MiroValue result = null;
+                try {
+                    result = apply((Operator) element, val1, val2);
+                } catch (MiroException e) {
+                    // Reported when the calculation is evaluated
+                }
+                // Only values that are never changed afterwards can be shared by all evaluations
+                if (result instanceof Numeric || result instanceof Bool || result instanceof StringValue) {
+                    List<Object> part = new ArrayList<>();
+                    part.add(new ConstantExpression(result));
+                    parts.push(part);
+                    continue;
+                }
+            }
+            left.addAll(right);
+            left.add(element);
+            parts.push(left);
+        }
+        return parts.size() == 1 ? parts.pop() : postfix;
+    }
+
+    private static MiroValue constantOf (List<Object> part) {
+        if (part.size() == 1 && part.get(0) instanceof ConstantExpression)
+            return ((ConstantExpression) part.get(0)).getValue();
+        return null;
+    }
+
+    private static List<Object> parseCalculation (Parser parser, boolean openedByBracket) throws MiroException {
+        TokenStream tokenizer = parser.tokenizer();
+        List<Object> postfix = new ArrayList<>();
+        Deque<Operator> operators = new ArrayDeque<>();
 
         if (openedByBracket)
             parser.consume(TokenType.O_R_TOKEN);
@@ -102,14 +243,17 @@ public class Calculator implements MiroValue {
         do {
             if (tokenizer.nextTokenType() == TokenType.ARITHMETIC_TOKEN) {
                 Operator operator = Operator.toOperator(tokenizer.getNext().getToken());
-                while (!operators.empty() &&
-                        operators.peek().getPrecedence() > operator.getPrecedence()) {
+                // Operators of the same precedence are evaluated from left to right
+                while (!operators.isEmpty() &&
+                        operators.peek().getPrecedence() >= operator.getPrecedence()) {
                     postfix.add(operators.pop());
                 }
                 operators.push(operator);
             }
-            else
-                postfix.add(parser.parseValue());
+            else {
+                Expression operand = parser.parseExpression();
+                postfix.add(operand == null ? new ConstantExpression(null) : operand);
+            }
             parser.consumeWhitespaces();
         } while (tokenizer.nextTokenType() != TokenType.C_R_TOKEN
                 && tokenizer.nextTokenType() != TokenType.NEWLINE_TOKEN
@@ -131,62 +275,190 @@ public class Calculator implements MiroValue {
         if (openedByBracket)
             parser.consume(TokenType.C_R_TOKEN);
 
+        return postfix;
     }
 
-    public MiroValue eval () throws MiroParserException {
-        Stack<MiroValue> operands = new Stack<>();
-        int position = 0;
+    /**
+     * Evaluates the calculation without any variables
+     */
+    public MiroValue eval () throws MiroException {
+        return evaluate(emptyContext());
+    }
 
-        if (operands.size() == 1)
-            return operands.pop();
+    private static Context emptyContext () {
+        return new Context(new SymbolTable(), (String) null);
+    }
 
-        do {
-            if (getPostfix().get(position) instanceof MiroValue)
-                operands.push((MiroValue) getPostfix().get(position));
-            else {
-                MiroValue val2 = operands.pop();
-                MiroValue val1 = operands.pop();
-                MiroValue result = null;
-                Operator operator = (Operator) getPostfix().get(position);
-                switch (operator) {
-                    case PLUS:
-                        result = add(val1, val2);
-                        break;
-                    case MINUS:
-                        result = subtract(val1, val2);
-                    case MULTIPLY:
-                        result = multiply(val1, val2);
-                        break;
-                    case DIVIDE:
-                        result = divide(val1, val2);
-                        break;
-                    case OR:
-                        result = Or(val1, val2);
-                        break;
-                    case AND:
-                        result = And(val1, val2);
-                        break;
-                    case GREATER:
-                        result = greater(val1, val2);
-                        break;
-                    case GREATER_EQUALS:
-                        result = greaterEqual(val1, val2);
-                        break;
-                    case SMALLER:
-                        result = smaller(val1, val2);
-                        break;
-                    case SMALLER_EQUALS:
-                        result = smallerEqual(val1, val2);
-                        break;
-                    case EQUALSEQUALS:
-                        result = equalEqual(val1, val2);
-                        break;
+    @Override
+    public MiroValue evaluate (Context context) throws MiroException {
+        if (instructions.length == 1)
+            return push(instructions[0], arguments[0], context, null);
+
+        // Numbers and booleans stay primitive on the stack, other values are only used if an operand is no number
+        byte[] kinds = new byte[maxDepth];
+        double[] numbers = new double[maxDepth];
+        Unit[] units = new Unit[maxDepth];
+        MiroValue[] values = new MiroValue[maxDepth];
+        MiroValue[] slots = variables.length == 0 ? null : new MiroValue[variables.length];
+        int top = -1;
+
+        for (int i = 0; i < instructions.length; i++) {
+            if (instructions[i] != APPLY) {
+                MiroValue value = push(instructions[i], arguments[i], context, slots);
+                top++;
+                if (value instanceof Numeric) {
+                    kinds[top] = NUMERIC;
+                    numbers[top] = ((Numeric) value).getNormalizedValue();
+                    units[top] = ((Numeric) value).getUnit();
+                }
+                else if (value instanceof Bool) {
+                    kinds[top] = BOOL;
+                    numbers[top] = value.getBoolean() ? 1 : 0;
+                }
+                else {
+                    kinds[top] = VALUE;
+                    values[top] = value;
                 }
-                operands.push(result);
+                continue;
             }
-        } while (++position < getPostfix().size());
 
-        return operands.pop();
+            Operator operator = OPERATORS[arguments[i]];
+            if (top < 1)
+                throw new MiroCalculationException("Operator " + operator + " is missing an operand");
+            int left = top - 1;
+            if (!evaluatePrimitive(operator, kinds, numbers, units, left)) {
+                MiroValue val1 = materialize(kinds, numbers, units, values, left);
+                MiroValue val2 = materialize(kinds, numbers, units, values, top);
+                kinds[left] = VALUE;
+                values[left] = apply(operator, val1, val2);
+            }
+            values[top] = null;
+            top = left;
+        }
+
+        return materialize(kinds, numbers, units, values, top);
+    }
+
+    private MiroValue push (byte instruction, int argument, Context context, MiroValue[] slots) throws MiroException {
+        if (instruction == PUSH_OPERAND)
+            return operands[argument].evaluate(context);
+
+        if (slots != null && slots[argument] != null)
+            return slots[argument];
+        MiroValue value = context.findSymbol(variables[argument]);
+        if (value == null)
+            throw new MiroParserException("Unknown variable '$" + variables[argument] + "'");
+        if (slots != null)
+            slots[argument] = value;
+        return value;
+    }
+
+    /**
+     * Applies the operator to the two topmost entries if both are numbers or booleans, the result replaces the left entry
+     * @return false if the operator needs the values as objects
+     */
+    private static boolean evaluatePrimitive (Operator operator, byte[] kinds, double[] numbers, Unit[] units, int left) {
+        int right = left + 1;
+        if (kinds[left] == VALUE || kinds[right] == VALUE)
+            return false;
+
+        double a = numbers[left];
+        double b = numbers[right];
+        switch (operator) {
+            case AND:
+                return setBool(kinds, numbers, left, a != 0 && b != 0);
+            case OR:
+                return setBool(kinds, numbers, left, a != 0 || b != 0);
+            case EQUALSEQUALS:
+                if (kinds[left] == BOOL)
+                    return setBool(kinds, numbers, left, (a != 0) == (b != 0));
+                break;
+        }
+
+        if (kinds[left] != NUMERIC || kinds[right] != NUMERIC)
+            return false;
+
+        switch (operator) {
+            case EQUALSEQUALS:
+                return setBool(kinds, numbers, left, a == b);
+            case GREATER:
+                return setBool(kinds, numbers, left, a > b);
+            case GREATER_EQUALS:
+                return setBool(kinds, numbers, left, a >= b);
+            case SMALLER:
+                return setBool(kinds, numbers, left, a < b);
+            case SMALLER_EQUALS:
+                return setBool(kinds, numbers, left, a <= b);
+        }
+
+        // Relative units can only be calculated by the browser
+        if (isRelative(units[left]) || isRelative(units[right]))
+            return false;
+
+        switch (operator) {
+            case PLUS:
+                numbers[left] = a + b;
+                return true;
+            case MINUS:
+                numbers[left] = a - b;
+                return true;
+            case MULTIPLY:
+                numbers[left] = a * b;
+                return true;
+            case DIVIDE:
+                numbers[left] = a / b;
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean setBool (byte[] kinds, double[] numbers, int index, boolean value) {
+        kinds[index] = BOOL;
+        numbers[index] = value ? 1 : 0;
+        return true;
+    }
+
+    private static boolean isRelative (Unit unit) {
+        return unit == Unit.PERCENT || unit == Unit.VW || unit == Unit.VH;
+    }
+
+    private static MiroValue materialize (byte[] kinds, double[] numbers, Unit[] units, MiroValue[] values, int index) {
+        switch (kinds[index]) {
+            case NUMERIC:
+                return new Numeric(numbers[index], units[index]);
+            case BOOL:
+                return new Bool(numbers[index] != 0);
+            default:
+                return values[index];
+        }
+    }
+
+    private MiroValue apply (Operator operator, MiroValue val1, MiroValue val2) throws MiroParserException {
+        switch (operator) {
+            case PLUS:
+                return add(val1, val2);
+            case MINUS:
+                return subtract(val1, val2);
+            case MULTIPLY:
+                return multiply(val1, val2);
+            case DIVIDE:
+                return divide(val1, val2);
+            case OR:
+                return Or(val1, val2);
+            case AND:
+                return And(val1, val2);
+            case GREATER:
+                return greater(val1, val2);
+            case GREATER_EQUALS:
+                return greaterEqual(val1, val2);
+            case SMALLER:
+                return smaller(val1, val2);
+            case SMALLER_EQUALS:
+                return smallerEqual(val1, val2);
+            case EQUALSEQUALS:
+                return equalEqual(val1, val2);
+        }
+        return null;
     }
 
     private MiroValue add (MiroValue val1, MiroValue val2) throws MiroParserException {
@@ -413,9 +685,4 @@ public class Calculator implements MiroValue {
     private Bool And (MiroValue val1, MiroValue val2) throws MiroParserException {
         return new Bool(val1.getBoolean() && val2.getBoolean());
     }
-
-    @Override
-    public boolean getBoolean() throws MiroParserException {
-        return eval().getBoolean();
-    }
 }
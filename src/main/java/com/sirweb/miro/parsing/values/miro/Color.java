@@ -1,11 +1,7 @@
 package com.sirweb.miro.parsing.values.miro;
 
-import com.sirweb.miro.ast.miro.MiroFunc;
-import com.sirweb.miro.ast.miro.MiroFuncParameter;
 import com.sirweb.miro.ast.miro.MiroMixinParameter;
 import com.sirweb.miro.exceptions.*;
-import com.sirweb.miro.lexer.Tokenizer;
-import com.sirweb.miro.parsing.Parser;
 import com.sirweb.miro.parsing.values.Unit;
 import com.sirweb.miro.parsing.values.Value;
 
@@ -13,18 +9,39 @@ import java.util.*;
 import java.util.List;
 
 public class Color implements MiroValue {
-    private int red, green, blue, alpha;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // The alpha part of rgba() for every alpha value
+    private static final String[] ALPHA_STRINGS = new String[256];
 
-    private static List<MiroFunc> funcs = new ArrayList<>();
+    static {
+        for (int alpha = 0; alpha < 256; alpha++)
+            ALPHA_STRINGS[alpha] = String.format(Locale.US, "%f", alpha / 255.0);
+    }
+
+    private final int argb;
+    // Colors are immutable, the css is created once when it is needed first
+    private String css;
 
     public Color(int r, int g, int b, int a) {
-        red = r;
-        green = g;
-        blue = b;
-        alpha = a;
+        argb = pack(r, g, b, a);
     }
 
     public Color (Numeric r, Numeric g, Numeric b, Numeric a) throws MiroParserException {
+        this.argb = pack(r, g, b, a);
+    }
+
+    public Color (int r, int g, int b) { this(r,g,b,255); }
+
+    public Color (String hex) {
+        argb = pack(hex);
+    }
+
+    private Color (int argb) {
+        this.argb = argb;
+    }
+
+    private static int pack (Numeric r, Numeric g, Numeric b, Numeric a) throws MiroParserException {
+        int red, green, blue, alpha;
         if (r.getUnit() == Unit.NONE)
             red = (int) r.getValue();
         else if (r.getUnit() == Unit.PERCENT)
@@ -56,23 +73,34 @@ public class Color implements MiroValue {
             alpha = (int) ((a.getValue() / 100.0) * 255);
         else
             throw new MiroParserException("Cannot create alpha value from " + a.getUnit());
+        return pack(red, green, blue, alpha);
     }
 
-    public Color (int r, int g, int b) { this(r,g,b,255); }
-
-    public Color (String hex) {
+    private static int pack (String hex) {
         if (hex.length() == 4)
             hex = "#" + hex.charAt(1) + hex.charAt(1) + hex.charAt(2) + hex.charAt(2) + hex.charAt(3) + hex.charAt(3);
-        java.awt.Color intern = java.awt.Color.decode(hex);
+        return 0xff000000 | Integer.decode(hex);
+    }
 
-        red = intern.getRed();
-        green = intern.getGreen();
-        blue = intern.getBlue();
-        alpha = intern.getAlpha();
+    /**
+     * Components outside of 0 to 255 are clamped
+     */
+    private static int pack (int r, int g, int b, int a) {
+        return clamp(a) << 24 | clamp(r) << 16 | clamp(g) << 8 | clamp(b);
+    }
 
+    private static int clamp (int component) {
+        return Math.max(0, Math.min(255, component));
     }
 
-    public static Map<String, String> getDefaultColorDictionary () {
+    private static final Map<String, String> NAMED_COLORS;
+    // Packed 0xRRGGBB value of every named color and the name that is used when a color is exported
+    private static final Map<String, Integer> NAMED_RGB;
+    private static final Map<Integer, String> COLOR_NAMES;
+    // Shared instances of the named colors, keyed by their packed 0xRRGGBB value
+    private static final Map<Integer, Color> NAMED_INSTANCES;
+
+    static {
         Map<String, String> dict = new HashMap<String, String>();
         dict.put("aliceblue", "#f0f8ff");
         dict.put("antiquewhite", "#faebd7");
@@ -223,35 +251,104 @@ public class Color implements MiroValue {
         dict.put("yellow", "#ffff00");
         dict.put("yellowgreen", "#9acd32");
 
-        return dict;
+        NAMED_COLORS = Collections.unmodifiableMap(dict);
+
+        Map<String, Integer> rgb = new HashMap<>();
+        Map<Integer, String> names = new HashMap<>();
+        // Some colors have several names (aqua and cyan), the first one in the dictionary is exported
+        for (Map.Entry<String, String> color : dict.entrySet()) {
+            int packed = Integer.parseInt(color.getValue().substring(1), 16);
+            rgb.put(color.getKey(), packed);
+            if (!names.containsKey(packed))
+                names.put(packed, color.getKey());
+        }
+        NAMED_RGB = Collections.unmodifiableMap(rgb);
+        COLOR_NAMES = Collections.unmodifiableMap(names);
+
+        Map<Integer, Color> instances = new HashMap<>();
+        for (Integer packed : names.keySet())
+            instances.put(packed, new Color(0xff000000 | packed));
+        NAMED_INSTANCES = Collections.unmodifiableMap(instances);
+    }
+
+    /**
+     * @return the hex values of all named colors, the map cannot be changed
+     */
+    public static Map<String, String> getDefaultColorDictionary () {
+        return NAMED_COLORS;
     }
 
     public static boolean knowsColor (String colorName) {
-        return getDefaultColorDictionary().containsKey(colorName);
+        return NAMED_RGB.containsKey(colorName);
+    }
+
+    /**
+     * @return the named color or null if there is no color with this name
+     */
+    public static Color forName (String colorName) {
+        Integer rgb = NAMED_RGB.get(colorName);
+        return rgb == null ? null : NAMED_INSTANCES.get(rgb);
+    }
+
+    /**
+     * @return a shared instance for named colors, a new color otherwise
+     */
+    public static Color valueOf (int r, int g, int b, int a) {
+        return valueOf(pack(r, g, b, a));
+    }
+
+    /**
+     * @param hex a color like #f00 or #ff0000
+     * @return a shared instance for named colors, a new color otherwise
+     */
+    public static Color valueOf (String hex) {
+        return valueOf(pack(hex));
+    }
+
+    /**
+     * @return a shared instance for named colors, a new color otherwise
+     */
+    public static Color valueOf (Numeric r, Numeric g, Numeric b, Numeric a) throws MiroParserException {
+        return valueOf(pack(r, g, b, a));
+    }
+
+    private static Color valueOf (int argb) {
+        if (argb >>> 24 == 255) {
+            Color named = NAMED_INSTANCES.get(argb & 0xffffff);
+            if (named != null)
+                return named;
+        }
+        return new Color(argb);
     }
 
     public String toString () {
+        String css = this.css;
+        if (css == null)
+            this.css = css = serialize();
+        return css;
+    }
+
+    private String serialize () {
+        int red = getRed(), green = getGreen(), blue = getBlue(), alpha = getAlpha();
         if (alpha == 255) {
-            String hex = String.format("#%02x%02x%02x", red, green, blue);
-            if (getDefaultColorDictionary().containsValue(hex)) {
-                for (String key : getDefaultColorDictionary().keySet())
-                    if (hex.equals(getDefaultColorDictionary().get(key)))
-                        return key;
-
-            }
-            else {
-                if (hex.charAt(1) == hex.charAt(2)
-                        && hex.charAt(3) == hex.charAt(4)
-                        && hex.charAt(5) == hex.charAt(6))
-                    return "#" + hex.charAt(1) + hex.charAt(3) + hex.charAt(5);
-                else
-                    return hex;
-            }
+            String name = COLOR_NAMES.get(argb & 0xffffff);
+            if (name != null)
+                return name;
+
+            if (red >> 4 == (red & 0xf) && green >> 4 == (green & 0xf) && blue >> 4 == (blue & 0xf))
+                return new String(new char[] { '#', HEX_DIGITS[red & 0xf], HEX_DIGITS[green & 0xf], HEX_DIGITS[blue & 0xf] });
+            return new String(new char[] {
+                    '#',
+                    HEX_DIGITS[red >> 4], HEX_DIGITS[red & 0xf],
+                    HEX_DIGITS[green >> 4], HEX_DIGITS[green & 0xf],
+                    HEX_DIGITS[blue >> 4], HEX_DIGITS[blue & 0xf] });
         }
-        else
-            return String.format(Locale.US,"rgba(%d, %d, %d, %f)", red, green, blue, alpha / 255.0);
-
-        return "transparent";
+        return new StringBuilder(32)
+                .append("rgba(").append(red)
+                .append(", ").append(green)
+                .append(", ").append(blue)
+                .append(", ").append(ALPHA_STRINGS[alpha])
+                .append(')').toString();
     }
 
     @Override
@@ -260,63 +357,63 @@ public class Color implements MiroValue {
             case "getRed":
                 if (parameters.size() != 0)
                     throw new MiroFuncParameterException(functionName, 0, parameters.size());
-                return new Numeric(red, Unit.NONE);
+                return new Numeric(getRed(), Unit.NONE);
             case "getGreen":
                 if (parameters.size() != 0)
                     throw new MiroFuncParameterException(functionName, 0, parameters.size());
-                return new Numeric(green, Unit.NONE);
+                return new Numeric(getGreen(), Unit.NONE);
             case "getBlue":
                 if (parameters.size() != 0)
                     throw new MiroFuncParameterException(functionName, 0, parameters.size());
-                return new Numeric(blue, Unit.NONE);
+                return new Numeric(getBlue(), Unit.NONE);
             case "getAlpha":
                 if (parameters.size() != 0)
                     throw new MiroFuncParameterException(functionName, 0, parameters.size());
-                return new Numeric(alpha / 255.0, Unit.NONE);
+                return new Numeric(getAlpha() / 255.0, Unit.NONE);
             case "setRed":
-                Color tmpColorR = new Color(red, green, blue);
+                int newRed;
                 if (parameters.size() != 1)
                     throw new MiroFuncParameterException(functionName, 1, parameters.size());
                 MiroValue valueRed = parameters.get(0);
                 if (!(valueRed instanceof Numeric))
                     throw new MiroFuncParameterException("setRed function parameter has to be numeric");
                 if (((Numeric) valueRed).getUnit() == Unit.NONE)
-                    tmpColorR.red = (int) ((Numeric) valueRed).getValue();
+                    newRed = (int) ((Numeric) valueRed).getValue();
                 else if (((Numeric) valueRed).getUnit() == Unit.PERCENT)
-                    tmpColorR.red = (int) ((((Numeric) valueRed).getValue() / 100.0) * 255.0);
+                    newRed = (int) ((((Numeric) valueRed).getValue() / 100.0) * 255.0);
                 else
                     throw new MiroFuncParameterException("setRed function parameter has to be percent or simple number");
-                return tmpColorR;
+                return valueOf(newRed, getGreen(), getBlue(), 255);
             case "setGreen":
-                Color tmpColorG = new Color(red, green, blue);
+                int newGreen;
                 if (parameters.size() != 1)
                     throw new MiroFuncParameterException(functionName, 1, parameters.size());
                 MiroValue valueGreen = parameters.get(0);
                 if (!(valueGreen instanceof Numeric))
                     throw new MiroFuncParameterException("setGreen function parameter has to be numeric");
                 if (((Numeric) valueGreen).getUnit() == Unit.NONE)
-                    tmpColorG.green = (int) ((Numeric) valueGreen).getValue();
+                    newGreen = (int) ((Numeric) valueGreen).getValue();
                 else if (((Numeric) valueGreen).getUnit() == Unit.PERCENT)
-                    tmpColorG.green = (int) ((((Numeric) valueGreen).getValue() / 100.0) * 255.0);
+                    newGreen = (int) ((((Numeric) valueGreen).getValue() / 100.0) * 255.0);
                 else
                     throw new MiroFuncParameterException("setGreen function parameter has to be percent or simple number");
-                return tmpColorG;
+                return valueOf(getRed(), newGreen, getBlue(), 255);
             case "setBlue":
-                Color tmpColorB = new Color(red, green, blue);
+                int newBlue;
                 if (parameters.size() != 1)
                     throw new MiroFuncParameterException(functionName, 1, parameters.size());
                 MiroValue valueBlue = parameters.get(0);
                 if (!(valueBlue instanceof Numeric))
                     throw new MiroFuncParameterException("setBlue function parameter has to be numeric");
                 if (((Numeric) valueBlue).getUnit() == Unit.NONE)
-                    tmpColorB.blue = (int) ((Numeric) valueBlue).getValue();
+                    newBlue = (int) ((Numeric) valueBlue).getValue();
                 else if (((Numeric) valueBlue).getUnit() == Unit.PERCENT)
-                    tmpColorB.blue = (int) ((((Numeric) valueBlue).getValue() / 100.0) * 255.0);
+                    newBlue = (int) ((((Numeric) valueBlue).getValue() / 100.0) * 255.0);
                 else
                     throw new MiroFuncParameterException("setBlue function parameter has to be percent or simple number");
-                return tmpColorB;
+                return valueOf(getRed(), getGreen(), newBlue, 255);
             case "setAlpha":
-                Color tmpColorA = new Color(red, green, blue);
+                int newAlpha;
                 if (parameters.size() != 1)
                     throw new MiroFuncParameterException(functionName, 1, parameters.size());
                 MiroValue valueAlpha = parameters.get(0);
@@ -324,93 +421,43 @@ public class Color implements MiroValue {
                     throw new MiroFuncParameterException("setBlue function parameter has to be numeric");
                 if (((Numeric) valueAlpha).getUnit() == Unit.NONE)
                     if (((Numeric) valueAlpha).getValue() <= 1.0)
-                        tmpColorA.alpha = (int) ((Numeric) valueAlpha).getValue() * 255;
+                        newAlpha = (int) ((Numeric) valueAlpha).getValue() * 255;
                     else
-                        tmpColorA.alpha = (int) ((Numeric) valueAlpha).getValue();
+                        newAlpha = (int) ((Numeric) valueAlpha).getValue();
                 else if (((Numeric) valueAlpha).getUnit() == Unit.PERCENT)
-                    tmpColorA.alpha = (int) ((((Numeric) valueAlpha).getValue() / 100.0) * 255.0);
+                    newAlpha = (int) ((((Numeric) valueAlpha).getValue() / 100.0) * 255.0);
                 else
                     throw new MiroFuncParameterException("setAlpha function parameter has to be percent or simple number");
-                return tmpColorA;
+                return valueOf(getRed(), getGreen(), getBlue(), newAlpha);
             default:
-                if (hasFunc(functionName)) {
-                    Tokenizer tmpTokenizer = new Tokenizer(getFunc(functionName).getContent());
-                    tmpTokenizer.tokenize();
-                    Parser tmpParser = new Parser(tmpTokenizer);
-
-                    MiroFunc func = getFunc(functionName);
-
-                    List<MiroFuncParameter> neededParameters = new ArrayList<>();
-
-                    for (MiroFuncParameter param : func.getParameters())
-                        if (param.getDefaultValue() == null)
-                            neededParameters.add(param);
-
-                    if (parameters.size() < neededParameters.size())
-                        throw new MiroMixinException("Func Color." + functionName + " takes " + neededParameters.size() + " parameters but " + parameters.size() + " were passed");
-
-                    List<MiroValue> parameterValueList = new ArrayList<>();
-
-
-                    int i = parameters.size();
-                    for (; i < func.getParameterCount(); i++)
-                        parameterValueList.add(func.getParameter(i).getDefaultValue());
-
-                    int paramIndex = 0;
-                    for (MiroFuncParameter param : func.getParameters()) {
-                        tmpParser.setGlobal(param.getName(), parameterValueList.get(paramIndex));
-                        paramIndex++;
-                    }
-
-                    tmpParser.setGlobal("this", new Color(red, green, blue, alpha));
-
-                    return tmpParser.parse().symbolTable().getSymbol("this");
-                }
-                else
-                    throw new MiroUnimplementedFuncException(functionName, this.getClass());
+                throw new MiroUnimplementedFuncException(functionName, this.getClass());
 
         }
     }
 
     public int getRed () {
-        return this.red;
+        return (argb >> 16) & 0xff;
     }
 
     public int getGreen() {
-        return green;
+        return (argb >> 8) & 0xff;
     }
 
     public int getBlue() {
-        return blue;
+        return argb & 0xff;
     }
 
     public int getAlpha() {
-        return alpha;
+        return argb >>> 24;
     }
 
+    /**
+     * @return the color packed as 0xAARRGGBB
+     */
+    public int getArgb () { return argb; }
+
     @Override
     public boolean getBoolean() {
-        return !(alpha == 0 || (red == 0 && green == 0 && blue == 0));
-    }
-
-    public static void addFunc(MiroFunc miroFunc) {
-        for (MiroFunc f : funcs) {
-            if (f.getName().equals(miroFunc.getName())) {
-                funcs.remove(f);
-                break;
-            }
-        }
-        funcs.add(miroFunc);
-    }
-
-    public static MiroFunc getFunc (String name) {
-        for (MiroFunc func : funcs)
-            if (func.getName().equals(name))
-                return func;
-        return null;
-    }
-
-    public static boolean hasFunc (String name) {
-        return getFunc(name) != null;
+        return !(getAlpha() == 0 || (argb & 0xffffff) == 0);
     }
 }
@@ -2,17 +2,17 @@ package com.sirweb.miro.parsing.values.miro;
 
 import com.sirweb.miro.ast.miro.MiroMixin;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class SymbolTable {
     private Map<String, MiroValue> values;
-    private List<MiroMixin> mixins;
+    // Mixins in the order they were (re)defined
+    private Map<String, MiroMixin> mixins;
     public SymbolTable () {
         values = new HashMap<>();
-        mixins = new ArrayList<>();
+        mixins = new LinkedHashMap<>();
 
     }
 
@@ -31,25 +31,17 @@ public class SymbolTable {
     public Iterable<String> getSymbols () { return values.keySet(); }
 
     public void addMixin (MiroMixin mixin) {
-        for (MiroMixin mix : mixins) {
-            if (mix.getName().equals(mixin.getName())) {
-                mixins.remove(mix);
-                break;
-            }
-        }
-        mixins.add(mixin);
+        mixins.remove(mixin.getName());
+        mixins.put(mixin.getName(), mixin);
     }
 
     public boolean hasMixin (String name) {
-        return getMixin(name) != null;
+        return mixins.containsKey(name);
     }
 
     public MiroMixin getMixin (String name) {
-        for (MiroMixin mix : getMixins())
-            if (mix.getName().equals(name))
-                return mix;
-        return null;
+        return mixins.get(name);
     }
 
-    public Iterable<MiroMixin> getMixins () { return mixins; }
+    public Iterable<MiroMixin> getMixins () { return mixins.values(); }
 }
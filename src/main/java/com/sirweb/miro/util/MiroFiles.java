@@ -0,0 +1,90 @@
+package com.sirweb.miro.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Helpers to identify, read and write files and their content
+ * @author Tamino Laub
+ */
+public class MiroFiles {
+
+    private MiroFiles () {}
+
+    /**
+     * @return the canonical path of the file or its absolute path if it cannot be resolved
+     */
+    public static String canonicalPath (String filePath) {
+        File file = new File(filePath);
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Writes the content as UTF-8, the charset source files are read with
+     */
+    public static void write (File file, String content) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write(content);
+        }
+    }
+
+    /**
+     * @return the SHA-256 hash of the content as hex string
+     */
+    public static String hash (String content) {
+        return hash(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the SHA-256 hash of the file content as hex string or null if the file cannot be read
+     */
+    public static String hash (File file) {
+        try {
+            return hash(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the SHA-256 hash of the remaining content as hex string
+     */
+    public static String hash (ByteBuffer content) {
+        MessageDigest digest = sha256();
+        digest.update(content.duplicate());
+        return hex(digest.digest());
+    }
+
+    private static String hash (byte[] content) {
+        return hex(sha256().digest(content));
+    }
+
+    private static MessageDigest sha256 () {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex (byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest)
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return hex.toString();
+    }
+}
@@ -1,28 +1,81 @@
 package com.sirweb.miro.util;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 /**
+ * Loads a source file as UTF-8 into a CharBuffer the lexer scans directly.
+ * Line breaks are normalized to \n and the content always ends with a line break.
  * @author Tamino Laub
  */
 public class Reader {
-    private String content = "";
-    public Reader (String filepath) {
-        try {
-            BufferedReader br = new BufferedReader(new FileReader(filepath));
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                content += line + "\n";
+    // Larger files are mapped instead of copied onto the heap before decoding
+    private static final long MAP_THRESHOLD = 1024 * 1024;
 
-            }
+    private ByteBuffer bytes;
+    private CharBuffer content;
+
+    public Reader (String filepath) throws IOException {
+        this(Paths.get(filepath));
+    }
+
+    public Reader (Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD)
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            else
+                bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        }
+    }
 
-        }catch(IOException e) { e.printStackTrace(); }
+    /**
+     * @return the raw content of the file
+     */
+    public ByteBuffer bytes () { return bytes.asReadOnlyBuffer(); }
 
+    public CharBuffer read () {
+        if (content == null)
+            content = decode(bytes.duplicate());
+        return content;
     }
 
-    public String read () { return content; }
+    private static CharBuffer decode (ByteBuffer in) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // UTF-8 never decodes to more chars than bytes, one more is kept for the final line break
+        CharBuffer out = CharBuffer.allocate(in.remaining() + 1);
+        decoder.decode(in, out, true);
+        decoder.flush(out);
+        out.flip();
+
+        char[] chars = out.array();
+        int length = out.limit();
+        int start = length > 0 && chars[0] == '\uFEFF' ? 1 : 0;
+        int end = 0;
+        for (int i = start; i < length; i++) {
+            char c = chars[i];
+            if (c == '\r') {
+                c = '\n';
+                if (i + 1 < length && chars[i + 1] == '\n')
+                    i++;
+            }
+            chars[end++] = c;
+        }
+        if (end > 0 && chars[end - 1] != '\n')
+            chars[end++] = '\n';
+
+        return CharBuffer.wrap(chars, 0, end);
+    }
 
-}
\ No newline at end of file
+}
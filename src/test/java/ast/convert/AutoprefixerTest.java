@@ -2,8 +2,11 @@ package ast.convert;
 
 import com.sirweb.miro.ast.converter.MiroToCssConverter;
 import com.sirweb.miro.ast.css.CssBlock;
+import com.sirweb.miro.ast.css.CssMediaQuery;
+import com.sirweb.miro.ast.css.CssStatement;
 import com.sirweb.miro.ast.css.CssStylesheet;
 import com.sirweb.miro.ast.miro.MiroBlock;
+import com.sirweb.miro.ast.miro.MiroMediaQuery;
 import com.sirweb.miro.ast.miro.MiroStatement;
 import com.sirweb.miro.ast.miro.MiroStylesheet;
 import com.sirweb.miro.lexer.Token;
@@ -11,6 +14,9 @@ import com.sirweb.miro.lexer.TokenType;
 import com.sirweb.miro.parsing.values.miro.Ident;
 import org.junit.Test;
 
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class AutoprefixerTest {
@@ -30,4 +36,53 @@ public class AutoprefixerTest {
         assertTrue(((CssBlock)cssStylesheet.getElement("div")).hasStatement("-webkit-transition"));
         assertTrue(((CssBlock)cssStylesheet.getElement("div")).hasStatement("-moz-transition"));
     }
+
+    @Test
+    public void autoprefixMediaQuery () {
+        MiroStylesheet stylesheet = new MiroStylesheet();
+        MiroBlock block = new MiroBlock("div");
+        MiroMediaQuery mediaQuery = new MiroMediaQuery("(max-width: 400px)");
+        mediaQuery.addStatement(new MiroStatement("hyphens", new Ident(new Token("auto", TokenType.IDENT_TOKEN))));
+        block.addBlock(mediaQuery);
+        stylesheet.addBlock(block);
+
+        CssStylesheet cssStylesheet = new MiroToCssConverter(stylesheet).convert();
+
+        CssBlock cssBlock = ((CssMediaQuery) cssStylesheet.getElement("@media (max-width: 400px)")).getBlock("div");
+        assertTrue(cssBlock.hasStatement("-webkit-hyphens"));
+        assertTrue(cssBlock.hasStatement("-moz-hyphens"));
+        assertTrue(cssBlock.hasStatement("-ms-hyphens"));
+    }
+
+    @Test
+    public void convertTwice () {
+        MiroStylesheet stylesheet = new MiroStylesheet();
+        MiroBlock block = new MiroBlock("div");
+        block.addStatement(new MiroStatement("transform", new Ident(new Token("none", TokenType.IDENT_TOKEN))));
+        stylesheet.addBlock(block);
+
+        new MiroToCssConverter(stylesheet).convert();
+        CssStylesheet cssStylesheet = new MiroToCssConverter(stylesheet).convert();
+
+        assertEquals(3, ((CssBlock) cssStylesheet.getElement("div")).getStatements().size());
+    }
+
+    @Test
+    public void prefixedFollowBlockStatements () {
+        MiroStylesheet stylesheet = new MiroStylesheet();
+        MiroBlock block = new MiroBlock("div");
+        block.addStatement(new MiroStatement("transform", new Ident(new Token("none", TokenType.IDENT_TOKEN))));
+        block.addStatement(new MiroStatement("color", new Ident(new Token("inherit", TokenType.IDENT_TOKEN))));
+        stylesheet.addBlock(block);
+
+        List<CssStatement> statements = ((CssBlock) new MiroToCssConverter(stylesheet).convert().getElement("div")).getStatements();
+
+        assertEquals("transform", statements.get(0).getProperty());
+        assertEquals("color", statements.get(1).getProperty());
+        for (int i = 2; i < statements.size(); i++) {
+            assertTrue(statements.get(i).getProperty().endsWith("-transform"));
+            assertEquals("none", statements.get(i).getValue());
+        }
+        assertEquals(4, statements.size());
+    }
 }
@@ -3,6 +3,7 @@ package ast.convert;
 import com.sirweb.miro.ast.converter.MiroToCssConverter;
 import com.sirweb.miro.ast.css.CssBlock;
 import com.sirweb.miro.ast.css.CssMediaQuery;
+import com.sirweb.miro.ast.css.CssStatement;
 import com.sirweb.miro.ast.css.CssStylesheet;
 import com.sirweb.miro.ast.miro.MiroBlock;
 import com.sirweb.miro.ast.miro.MiroMediaQuery;
@@ -15,7 +16,11 @@ import com.sirweb.miro.parsing.values.miro.Numeric;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class MiroToCssTest {
@@ -147,4 +152,68 @@ public class MiroToCssTest {
         CssBlock cssBlock = cssMediaQuery.getBlock("div");
         assertTrue(cssBlock.hasStatement("color"));
     }
+
+    @Test
+    public void mergedBlockKeepsPosition () {
+        MiroStylesheet stylesheet = new MiroStylesheet();
+        String[] headers = { "div", "span", "div", "p", "span" };
+        for (String header : headers) {
+            MiroBlock block = new MiroBlock(header);
+            block.addStatement(new MiroStatement("margin-left", new Numeric(3.0, Unit.PX)));
+            stylesheet.addBlock(block);
+        }
+
+        CssStylesheet cssStylesheet = new MiroToCssConverter(stylesheet).convert();
+        assertEquals(3, cssStylesheet.getElements().size());
+        assertEquals("div", cssStylesheet.getElements().get(0).getHeader());
+        assertEquals("span", cssStylesheet.getElements().get(1).getHeader());
+        assertEquals("p", cssStylesheet.getElements().get(2).getHeader());
+    }
+
+    @Test
+    public void deduplicateMergedBlock () {
+        MiroStylesheet stylesheet = new MiroStylesheet();
+        MiroBlock block = new MiroBlock("div");
+        block.addStatement(new MiroStatement("margin-left", new Numeric(3.0, Unit.PX)));
+        block.addStatement(new MiroStatement("padding", new Numeric(1.0, Unit.PX)));
+        MiroBlock block2 = new MiroBlock("div");
+        block2.addStatement(new MiroStatement("margin-left", new Numeric(5.0, Unit.PX)));
+        stylesheet.addBlock(block);
+        stylesheet.addBlock(block2);
+
+        MiroToCssConverter converter = new MiroToCssConverter(stylesheet);
+        converter.setDeduplicate(true);
+        CssBlock cssBlock = (CssBlock) converter.convert().getElement("div");
+
+        assertEquals(2, cssBlock.getStatements().size());
+        assertEquals("padding", cssBlock.getStatements().get(0).getProperty());
+        assertEquals("5px", cssBlock.getStatement("margin-left").getValue());
+    }
+
+    @Test
+    public void importantStatementApplies () {
+        CssBlock block = new CssBlock("div", true);
+        block.addStatement(new CssStatement("color", "red", true));
+        block.addStatement(new CssStatement("color", "blue", false));
+        assertEquals("red", block.getStatement("color").getValue());
+        assertEquals(1, block.getStatements().size());
+
+        CssBlock keepAll = new CssBlock("div");
+        keepAll.addStatement(new CssStatement("color", "red", true));
+        keepAll.addStatement(new CssStatement("color", "blue", false));
+        assertEquals("red", keepAll.getStatement("color").getValue());
+        assertEquals(2, keepAll.getStatements().size());
+    }
+
+    @Test
+    public void deduplicatedStatementsAreReused () {
+        CssBlock block = new CssBlock("div", true);
+        block.addStatement(new CssStatement("color", "red", false));
+        List<CssStatement> statements = block.getStatements();
+        assertSame(statements, block.getStatements());
+
+        block.addStatement(new CssStatement("padding", "5px", false));
+        assertNotSame(statements, block.getStatements());
+        assertEquals(2, block.getStatements().size());
+    }
 }
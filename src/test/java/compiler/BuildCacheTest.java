@@ -0,0 +1,102 @@
+package compiler;
+
+import com.sirweb.miro.BuildCache;
+import com.sirweb.miro.MiroCompiler;
+import com.sirweb.miro.util.MiroFiles;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static util.TestFiles.write;
+
+public class BuildCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MiroCompiler compiler (File cacheDirectory) {
+        MiroCompiler compiler = new MiroCompiler();
+        compiler.setBuildCache(new BuildCache(cacheDirectory));
+        return compiler;
+    }
+
+    @Test
+    public void reuseUnchangedFile () throws IOException {
+        File cache = new File(folder.getRoot(), "cache");
+        File entry = write(folder.newFile("entry.miro"), "div\n    color red\n");
+
+        MiroCompiler.Result first = compiler(cache).compile(entry);
+        MiroCompiler.Result second = compiler(cache).compile(entry);
+
+        assertFalse(first.isCached());
+        assertTrue(second.isCached());
+        assertEquals(first.getCss(), second.getCss());
+    }
+
+    @Test
+    public void recompileWhenDependencyChanged () throws IOException {
+        File cache = new File(folder.getRoot(), "cache");
+        File partial = write(folder.newFile("_vars.miro"), "$size = 5px\n");
+        File dependent = write(folder.newFile("dependent.miro"), "@import '" + partial.getAbsolutePath() + "'\ndiv\n    padding $size\n");
+        File independent = write(folder.newFile("independent.miro"), "div\n    color red\n");
+
+        compiler(cache).compile(dependent);
+        compiler(cache).compile(independent);
+
+        write(partial, "$size = 10px\n");
+
+        MiroCompiler.Result dependentResult = compiler(cache).compile(dependent);
+        MiroCompiler.Result independentResult = compiler(cache).compile(independent);
+
+        assertFalse(dependentResult.isCached());
+        assertEquals("div {\n    padding: 10px;\n}\n\n", dependentResult.getCss());
+        assertTrue(independentResult.isCached());
+    }
+
+    @Test
+    public void recompileWhenFileChanged () throws IOException {
+        File cache = new File(folder.getRoot(), "cache");
+        File entry = write(folder.newFile("entry.miro"), "div\n    color red\n");
+
+        compiler(cache).compile(entry);
+        write(entry, "div\n    color blue\n");
+        MiroCompiler.Result result = compiler(cache).compile(entry);
+
+        assertFalse(result.isCached());
+        assertEquals("div {\n    color: blue;\n}\n\n", result.getCss());
+    }
+
+    @Test
+    public void storeHashOfCompiledContent () throws IOException {
+        File cache = new File(folder.getRoot(), "cache");
+        File entry = write(folder.newFile("entry.miro"), "div\n    color blue\n");
+
+        // The file was saved again after it had been read for the compilation
+        new BuildCache(cache).store(entry, MiroFiles.hash("div\n    color red\n"), Collections.<String, String>emptyMap(), false, "div {\n    color: red;\n}\n\n");
+        MiroCompiler.Result result = compiler(cache).compile(entry);
+
+        assertFalse(result.isCached());
+        assertEquals("div {\n    color: blue;\n}\n\n", result.getCss());
+    }
+
+    @Test
+    public void ignoreEntryOfOtherVersion () throws IOException {
+        File cache = new File(folder.getRoot(), "cache");
+        File entry = write(folder.newFile("entry.miro"), "div\n    color red\n");
+
+        compiler(cache).compile(entry);
+        File[] entries = cache.listFiles();
+        assertEquals(1, entries.length);
+        String stored = new String(Files.readAllBytes(entries[0].toPath()), StandardCharsets.UTF_8);
+        Files.write(entries[0].toPath(), stored.replace("version=" + BuildCache.VERSION, "version=0").getBytes(StandardCharsets.UTF_8));
+
+        assertNull(new BuildCache(cache).lookup(entry, false));
+        assertFalse(compiler(cache).compile(entry).isCached());
+    }
+}
@@ -0,0 +1,56 @@
+package compiler;
+
+import com.sirweb.miro.MiroCompiler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+import static util.TestFiles.write;
+
+public class MiroCompilerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void compileInParallel () throws Exception {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            files.add(write(folder.newFile("file" + i + ".miro"), "@color\n    func mark():\n        $this = $this.setRed(" + (i + 1) + ")\n$c = #000000\ndiv\n    color $c.mark()\n"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        MiroCompiler compiler = new MiroCompiler(executor);
+        Map<File, MiroCompiler.Result> results = compiler.compileAll(files);
+        executor.shutdown();
+
+        assertEquals(20, results.size());
+        for (File file : files) {
+            MiroCompiler.Result result = results.get(file);
+            assertTrue(result.isSuccess());
+            assertEquals(compiler.compile(file).getCss(), result.getCss());
+        }
+        assertEquals("div {\n    color: #010000;\n}\n\n", results.get(files.get(0)).getCss());
+    }
+
+    @Test
+    public void reportErrorPerFile () throws Exception {
+        File good = write(folder.newFile("good.miro"), "div\n    color red\n");
+        File bad = write(folder.newFile("bad.miro"), "div\n    color $unknown\n");
+
+        List<File> files = new ArrayList<>();
+        files.add(good);
+        files.add(bad);
+        Map<File, MiroCompiler.Result> results = new MiroCompiler().compileAll(files);
+
+        assertTrue(results.get(good).isSuccess());
+        assertFalse(results.get(bad).isSuccess());
+        assertNotNull(results.get(bad).getError());
+    }
+}
@@ -0,0 +1,139 @@
+package compiler;
+
+import com.sirweb.miro.MiroCompiler;
+import com.sirweb.miro.MiroDaemon;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import static util.TestFiles.write;
+
+public class MiroDaemonTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private MiroDaemon daemon;
+    private Thread thread;
+
+    @Before
+    public void startDaemon () throws IOException {
+        directory = folder.newFolder("cache");
+        // Port 0 lets the system choose a free port
+        daemon = new MiroDaemon(new MiroCompiler(), 0, directory);
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    daemon.serve();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        thread.start();
+    }
+
+    @After
+    public void stopDaemon () throws InterruptedException {
+        daemon.stop();
+        thread.join(5000);
+    }
+
+    @Test
+    public void compileOnDaemon () throws IOException {
+        File in = write(folder.newFile("style.miro"), "div\n    padding 5px\n");
+        File out = new File(folder.getRoot(), "style.css");
+
+        assertNull(MiroDaemon.compile(daemon.getPort(), directory, in, out));
+        assertEquals("div {\n    padding: 5px;\n}\n\n", new String(Files.readAllBytes(out.toPath())));
+    }
+
+    @Test
+    public void reportErrorToClient () throws IOException {
+        File in = write(folder.newFile("style.miro"), "div\n    content 'unclosed\n");
+        File out = new File(folder.getRoot(), "style.css");
+
+        assertNotNull(MiroDaemon.compile(daemon.getPort(), directory, in, out));
+        assertFalse(out.exists());
+    }
+
+    @Test
+    public void stopDaemonFromClient () throws IOException, InterruptedException {
+        MiroDaemon.stop(daemon.getPort(), directory);
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    public void rejectRequestWithoutToken () throws IOException, InterruptedException {
+        File in = write(folder.newFile("style.miro"), "div\n    padding 5px\n");
+        File out = new File(folder.getRoot(), "style.css");
+
+        String answer;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            OutputStream os = socket.getOutputStream();
+            os.write(("compile\n" + in.getAbsolutePath() + "\n" + out.getAbsolutePath() + "\n").getBytes(StandardCharsets.UTF_8));
+            os.flush();
+            answer = reader.readLine();
+        }
+
+        assertEquals("error", answer);
+        assertFalse(out.exists());
+        thread.join(100);
+        assertTrue(thread.isAlive());
+    }
+
+    @Test
+    public void tokenOnlyReadableByOwner () throws IOException {
+        File[] tokens = directory.listFiles();
+        assertEquals(1, tokens.length);
+        assumeTrue(Files.getFileStore(tokens[0].toPath()).supportsFileAttributeView("posix"));
+
+        assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE), Files.getPosixFilePermissions(tokens[0].toPath()));
+    }
+
+    @Test
+    public void rejectLinkedOutput () throws IOException {
+        File in = write(folder.newFile("style.miro"), "div\n    padding 5px\n");
+        File target = write(folder.newFile("target.txt"), "unchanged");
+        File out = new File(folder.getRoot(), "style.css");
+        Files.createSymbolicLink(out.toPath(), target.toPath());
+
+        assertNotNull(MiroDaemon.compile(daemon.getPort(), directory, in, out));
+        assertEquals("unchanged", new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void reportMissingToken () throws IOException {
+        File in = write(folder.newFile("style.miro"), "div\n    padding 5px\n");
+        File out = new File(folder.getRoot(), "style.css");
+        File other = folder.newFolder("other");
+
+        try {
+            MiroDaemon.compile(daemon.getPort(), other, in, out);
+            fail("Expected a missing token");
+        } catch (FileNotFoundException e) {
+            assertTrue(e.getMessage().contains(other.getAbsolutePath()));
+        }
+        assertFalse(out.exists());
+    }
+}
@@ -0,0 +1,60 @@
+package compiler;
+
+import com.sirweb.miro.MiroCompiler;
+import com.sirweb.miro.MiroWatcher;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static util.TestFiles.write;
+
+public class MiroWatcherTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String read (File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void rebuildDependentFiles () throws IOException {
+        File partial = write(folder.newFile("_vars.miro"), "$size = 5px\n");
+        File dependent = write(folder.newFile("dependent.miro"), "@import '" + partial.getAbsolutePath() + "'\ndiv\n    padding $size\n");
+        File independent = write(folder.newFile("independent.miro"), "div\n    color red\n");
+        File dependentOut = new File(folder.getRoot(), "dependent.css");
+        File independentOut = new File(folder.getRoot(), "independent.css");
+
+        MiroWatcher watcher = new MiroWatcher(new MiroCompiler());
+        watcher.add(dependent, dependentOut);
+        watcher.add(independent, independentOut);
+        watcher.build(Arrays.asList(dependent, independent));
+        assertEquals("div {\n    padding: 5px;\n}\n\n", read(dependentOut));
+
+        write(partial, "$size = 10px\n");
+        Collection<File> rebuilt = watcher.rebuild(Collections.singleton(partial.getCanonicalPath()));
+
+        assertEquals(Collections.singletonList(dependent), new ArrayList<>(rebuilt));
+        assertEquals("div {\n    padding: 10px;\n}\n\n", read(dependentOut));
+    }
+
+    @Test
+    public void ignoreUnrelatedFiles () throws IOException {
+        File entry = write(folder.newFile("entry.miro"), "div\n    color red\n");
+        File other = write(folder.newFile("other.miro"), "div\n    color blue\n");
+
+        MiroWatcher watcher = new MiroWatcher(new MiroCompiler());
+        watcher.add(entry, new File(folder.getRoot(), "entry.css"));
+        watcher.build(Collections.singletonList(entry));
+
+        assertTrue(watcher.rebuild(Collections.singleton(other.getCanonicalPath())).isEmpty());
+    }
+}
@@ -0,0 +1,69 @@
+package compiler;
+
+import com.sirweb.miro.Miro;
+import com.sirweb.miro.StreamingCompiler;
+import com.sirweb.miro.ast.miro.MiroStylesheet;
+import com.sirweb.miro.exceptions.MiroConvertException;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.lexer.StreamingTokenizer;
+import com.sirweb.miro.parsing.Parser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class StreamingCompilerTest {
+
+    private String stream (String code) throws MiroException, IOException {
+        StringWriter out = new StringWriter();
+        new StreamingCompiler(false).compile(new Parser(new StreamingTokenizer(code)), out);
+        return out.toString();
+    }
+
+    @Test
+    public void sameOutputAsCompiler () throws MiroException, IOException {
+        String code = "$size = 5px\n"
+                + "div\n    padding $size\n    span\n        color red\n"
+                + "p\n    margin $size * 2\n";
+        assertEquals(new Miro(code).toCss(), stream(code));
+    }
+
+    @Test
+    public void handleEveryTopLevelBlock () throws MiroException, IOException {
+        final int[] closed = new int[1];
+        new Parser(new StreamingTokenizer("div\n    padding 5px\n    span\n        color red\np\n    margin 0\n"))
+                .parse(new Parser.BlockHandler() {
+                    @Override
+                    public void closed(MiroStylesheet stylesheet) {
+                        closed[0]++;
+                        int blocks = 0;
+                        for (Object block : stylesheet.getBlocks())
+                            blocks++;
+                        assertEquals(1, blocks);
+                    }
+                });
+        assertEquals(2, closed[0]);
+    }
+
+    @Test
+    public void sameSelectorIsNotMerged () throws MiroException, IOException {
+        String code = "div\n    padding 5px\np\n    margin 0\ndiv\n    color red\n";
+        assertEquals("div {\n    padding: 5px;\n}\n\n"
+                + "p {\n    margin: 0;\n}\n\n"
+                + "div {\n    color: red;\n}\n\n", stream(code));
+    }
+
+    @Test
+    public void importInFirstBlock () throws MiroException, IOException {
+        assertEquals("@import 'x.css';div {\n    color: red;\n}\n\np {\n    margin: 0;\n}\n\n",
+                stream("div\n    @import 'x.css'\n    color red\np\n    margin 0\n"));
+    }
+
+    @Test(expected = MiroConvertException.class)
+    public void importAfterRules () throws MiroException, IOException {
+        // The compiler moves the import to the top, a stream has already written the first block
+        stream("div\n    color red\np\n    @import 'x.css'\n    margin 0\n");
+    }
+}
@@ -6,7 +6,9 @@ import com.sirweb.miro.ast.css.CssStylesheet;
 import com.sirweb.miro.export.CssExporter;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.Assert.assertEquals;
 
@@ -22,4 +24,20 @@ public class CssExportTest {
         assertEquals("div {\n    margin-right: 3em;\n}\n\n", new CssExporter(stylesheet, false).export());
 
     }
+
+    @Test
+    public void exportToStream () throws IOException {
+        CssStylesheet stylesheet = new CssStylesheet();
+        CssBlock block = new CssBlock("div::before");
+        block.addStatement(new CssStatement("content", "'\u00e4'", true));
+        stylesheet.addElement(block);
+
+        CssExporter exporter = new CssExporter(stylesheet, true);
+        exporter.setBufferSize(4);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(out);
+
+        assertEquals("div::before{content:'\u00e4' !important;}", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(exporter.export(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
 }
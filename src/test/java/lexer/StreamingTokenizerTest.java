@@ -0,0 +1,62 @@
+package lexer;
+
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.exceptions.MiroTokenizerException;
+import com.sirweb.miro.lexer.StreamingTokenizer;
+import com.sirweb.miro.lexer.Token;
+import com.sirweb.miro.lexer.TokenType;
+import com.sirweb.miro.lexer.Tokenizer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingTokenizerTest {
+    @Test
+    public void sameTokensAsTokenizer () throws MiroException {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < 500; i++)
+            code.append("div.box").append(i).append("\n    padding ").append(i).append("px 2em\n");
+
+        Tokenizer tokenizer = new Tokenizer(code);
+        tokenizer.tokenize();
+        StreamingTokenizer stream = new StreamingTokenizer(code);
+
+        Token expected;
+        do {
+            expected = tokenizer.getNext();
+            Token actual = stream.getNext();
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getToken(), actual.getToken());
+        } while (expected.getType() != TokenType.EOF);
+        assertEquals(TokenType.EOF, stream.getNext().getType());
+    }
+
+    @Test
+    public void lookahead () throws MiroException {
+        StreamingTokenizer stream = new StreamingTokenizer("div a\n    color red");
+
+        assertTrue(stream.lineOpensBlock());
+        assertEquals(TokenType.WHITESPACE_TOKEN, stream.getXNextTokenType(1));
+        assertEquals(TokenType.NEWLINE_TOKEN, stream.getXNextTokenType(3));
+        assertEquals("div", stream.getNext().getToken());
+        stream.getNext();
+        stream.pushBack();
+        stream.pushBack();
+        assertEquals("div", stream.nextTokenString());
+
+        for (int i = 0; i < 4; i++)
+            stream.getNext();
+        assertEquals(TokenType.MIRO_INDENT_TOKEN, stream.getNextTokenTypeNotWhitespaceOrNewline());
+        assertFalse(stream.lineOpensBlock());
+    }
+
+    @Test(expected = MiroTokenizerException.class)
+    public void errorsSurfaceOnRead () throws MiroException {
+        StreamingTokenizer stream = new StreamingTokenizer("div %");
+        assertEquals("div", stream.getNext().getToken());
+        stream.getNext();
+        stream.getNext();
+    }
+}
@@ -0,0 +1,76 @@
+package lexer;
+
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.lexer.StreamingTokenizer;
+import com.sirweb.miro.lexer.Token;
+import com.sirweb.miro.lexer.TokenBuffer;
+import com.sirweb.miro.lexer.TokenType;
+import com.sirweb.miro.lexer.Tokenizer;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenBufferTest {
+    @Test
+    public void lazyText () {
+        TokenBuffer buffer = new TokenBuffer("color red");
+        buffer.add(TokenType.IDENT_TOKEN, 0, 5);
+        buffer.add(TokenType.WHITESPACE_TOKEN, 5, 6);
+        buffer.add(TokenType.IDENT_TOKEN, 6, 9);
+
+        assertEquals(3, buffer.size());
+        assertEquals(TokenType.WHITESPACE_TOKEN, buffer.type(1));
+        assertEquals("red", buffer.text(2));
+        assertEquals("color", buffer.token(0).getToken());
+    }
+
+    @Test
+    public void slices () {
+        TokenBuffer buffer = new TokenBuffer("abc");
+        for (int i = 0; i < 3; i++)
+            buffer.add(TokenType.IDENT_TOKEN, i, i + 1);
+
+        TokenBuffer slice = buffer.slice(1, 3);
+        assertEquals(2, slice.size());
+        assertEquals("b", slice.text(0));
+
+        // Appending to a slice must not overwrite the buffer it was taken from
+        slice.add(TokenType.IDENT_TOKEN, 0, 1);
+        buffer.add(TokenType.NUMBER_TOKEN, 2, 3);
+        assertEquals("a", slice.text(2));
+        assertEquals(TokenType.NUMBER_TOKEN, buffer.type(3));
+    }
+
+    @Test
+    public void fromTokens () {
+        TokenBuffer buffer = TokenBuffer.of(Arrays.asList(
+                new Token("$a", TokenType.MIRO_IDENT_TOKEN),
+                new Token("\n", TokenType.NEWLINE_TOKEN)));
+
+        Tokenizer tokenizer = new Tokenizer(buffer);
+        assertEquals("$a", tokenizer.getNext().getToken());
+        assertEquals(TokenType.NEWLINE_TOKEN, tokenizer.getNext().getType());
+        assertEquals(TokenType.EOF, tokenizer.nextTokenType());
+    }
+
+    @Test
+    public void markedTokensSurviveStreaming () throws MiroException {
+        StringBuilder code = new StringBuilder("start\n");
+        for (int i = 0; i < 200; i++)
+            code.append("    padding ").append(i).append("px\n");
+
+        StreamingTokenizer stream = new StreamingTokenizer(code);
+        stream.getNext();
+        stream.getNext();
+        int mark = stream.mark();
+        while (stream.nextTokenType() != TokenType.EOF)
+            stream.getNext();
+
+        TokenBuffer content = stream.sliceFrom(mark);
+        assertEquals(TokenType.MIRO_INDENT_TOKEN, content.type(0));
+        assertEquals("padding", content.text(1));
+        assertEquals("199px", content.text(content.size() - 2));
+    }
+}
@@ -102,4 +102,57 @@ public class TokenizerTest {
         assertEquals("before", second.getToken());
         assertEquals("after", third.getToken());
     }
+
+    @Test
+    public void multilineCommentsEndAtFirstClose () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("/* one */between/* two */");
+        tokenizer.tokenize();
+
+        Token first = tokenizer.getNext();
+        assertEquals(TokenType.IDENT_TOKEN, first.getType());
+        assertEquals("between", first.getToken());
+        assertEquals(TokenType.EOF, tokenizer.getNext().getType());
+    }
+
+    @Test
+    public void commentAtLineStart () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("first\n    // Comment\nafter");
+        tokenizer.tokenize();
+
+        assertEquals("first", tokenizer.getNext().getToken());
+        assertEquals(TokenType.NEWLINE_TOKEN, tokenizer.getNext().getType());
+        assertEquals(TokenType.MIRO_INDENT_TOKEN, tokenizer.getNext().getType());
+        assertEquals("after", tokenizer.getNext().getToken());
+    }
+
+    @Test
+    public void trailingIndentationAtEof () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("first\n    ");
+        tokenizer.tokenize();
+
+        assertEquals("first", tokenizer.getNext().getToken());
+        assertEquals(TokenType.NEWLINE_TOKEN, tokenizer.getNext().getType());
+        assertEquals(TokenType.MIRO_INDENT_TOKEN, tokenizer.getNext().getType());
+        assertEquals(TokenType.EOF, tokenizer.getNext().getType());
+    }
+
+    @Test
+    public void blockLookahead () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("div\n    color red\n\nspan");
+        tokenizer.tokenize();
+
+        assertEquals(true, tokenizer.lineOpensBlock());
+        tokenizer.getNext();
+        tokenizer.getNext();
+        tokenizer.getNext();
+        assertEquals(false, tokenizer.lineOpensBlock());
+        assertEquals(TokenType.IDENT_TOKEN, tokenizer.getNextTokenTypeNotWhitespaceOrNewline());
+        for (int i = 0; i < 4; i++)
+            tokenizer.getNext();
+        assertEquals(TokenType.MIRO_DEDENT_TOKEN, tokenizer.getNextTokenTypeNotWhitespaceOrNewline());
+
+        Tokenizer clone = tokenizer.clone();
+        assertEquals(TokenType.MIRO_DEDENT_TOKEN, clone.getNextTokenTypeNotWhitespaceOrNewline());
+        assertEquals(false, clone.lineOpensBlock());
+    }
 }
@@ -5,16 +5,21 @@ package parsing;
         import com.sirweb.miro.lexer.TokenType;
         import com.sirweb.miro.lexer.Tokenizer;
         import com.sirweb.miro.parsing.Parser;
+        import com.sirweb.miro.parsing.template.ConstantExpression;
+        import com.sirweb.miro.parsing.template.Context;
+        import com.sirweb.miro.parsing.template.Expression;
         import com.sirweb.miro.parsing.values.Unit;
         import com.sirweb.miro.parsing.values.miro.Calculator;
         import com.sirweb.miro.parsing.values.miro.MiroValue;
         import com.sirweb.miro.parsing.values.miro.Numeric;
         import com.sirweb.miro.parsing.values.miro.StringValue;
+        import com.sirweb.miro.parsing.values.miro.SymbolTable;
         import org.junit.Test;
 
         import java.util.List;
 
         import static org.junit.Assert.assertEquals;
+        import static org.junit.Assert.assertTrue;
 
 public class CalculatorTest {
     @Test
@@ -217,4 +222,71 @@ public class CalculatorTest {
         assertEquals("TRUE", result.toString());
     }
 
+    @Test
+    public void subtractNumerics () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("10px - 3px - 2px");
+        tokenizer.tokenize();
+        Parser parser = new Parser(tokenizer);
+        Calculator calculator = new Calculator(parser);
+        MiroValue result = calculator.eval();
+        assertEquals("5px", result.toString());
+    }
+
+    @Test
+    public void divideNumerics () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("20 / 2 / 5");
+        tokenizer.tokenize();
+        Parser parser = new Parser(tokenizer);
+        Calculator calculator = new Calculator(parser);
+        MiroValue result = calculator.eval();
+        assertEquals(2, (int)((Numeric) result).getValue());
+    }
+
+    @Test
+    public void compareCalculations () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("2 * 3 > 5 && 1em >= 16px");
+        tokenizer.tokenize();
+        Parser parser = new Parser(tokenizer);
+        Calculator calculator = new Calculator(parser);
+        MiroValue result = calculator.eval();
+        assertEquals("TRUE", result.toString());
+    }
+
+    @Test
+    public void evaluateInSeveralContexts () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("$a * $a + $b");
+        tokenizer.tokenize();
+        Calculator calculator = new Calculator(new Parser(tokenizer));
+
+        SymbolTable first = new SymbolTable();
+        first.setSymbol("a", new Numeric(3, Unit.PX));
+        first.setSymbol("b", new Numeric(1, Unit.PX));
+        SymbolTable second = new SymbolTable();
+        second.setSymbol("a", new Numeric(2, Unit.PX));
+        second.setSymbol("b", new Numeric(5, Unit.PX));
+
+        assertEquals("10px", calculator.evaluate(new Context(first, (String) null)).toString());
+        assertEquals("9px", calculator.evaluate(new Context(second, (String) null)).toString());
+    }
+
+    @Test
+    public void foldConstants () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("(4px * 2) / 4");
+        tokenizer.tokenize();
+        Expression folded = new Calculator(new Parser(tokenizer)).fold();
+
+        assertTrue(folded instanceof ConstantExpression);
+        assertEquals("2px", ((ConstantExpression) folded).getValue().toString());
+    }
+
+    @Test
+    public void foldConstantParts () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("$a + 2 * 3");
+        tokenizer.tokenize();
+        Calculator folded = (Calculator) new Calculator(new Parser(tokenizer)).fold();
+
+        SymbolTable symbols = new SymbolTable();
+        symbols.setSymbol("a", new Numeric(1, Unit.NONE));
+        assertEquals("7", folded.evaluate(new Context(symbols, (String) null)).toString());
+    }
 }
@@ -1,5 +1,6 @@
 package parsing;
 
+import com.sirweb.miro.ast.miro.MiroStylesheet;
 import com.sirweb.miro.exceptions.MiroException;
 import com.sirweb.miro.exceptions.MiroParserException;
 import com.sirweb.miro.lexer.Tokenizer;
@@ -10,6 +11,8 @@ import com.sirweb.miro.parsing.values.miro.MiroValue;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class ColorTest {
     @Test
@@ -75,4 +78,32 @@ public class ColorTest {
         MiroValue result = calculator.eval();
         assertEquals("white", result.toString());
     }
+
+    @Test
+    public void namedColors () {
+        assertEquals(255, Color.forName("tomato").getRed());
+        assertEquals(99, Color.forName("tomato").getGreen());
+        assertEquals(71, Color.forName("tomato").getBlue());
+        assertNull(Color.forName("notacolor"));
+
+        assertEquals("tomato", new Color(255, 99, 71).toString());
+        assertEquals(new Color(0, 255, 255).toString(), Color.forName("cyan").toString());
+        assertEquals("red", new Color(256, 0, 0).toString());
+        assertSame(Color.forName("red"), Color.valueOf(255, 0, 0, 255));
+        assertEquals("rgba(255, 0, 0, 0.501961)", new Color(255, 0, 0, 128).toString());
+    }
+
+    @Test
+    public void sharedNamedInstances () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("$hex = #ff0000\n$short = #f00\n$rgb = rgb(255, 0, 0)\n$rgba = rgba(255, 0, 0, 1)\n$other = #ff0001\n");
+        tokenizer.tokenize();
+        MiroStylesheet stylesheet = new Parser(tokenizer).parse();
+
+        Color red = Color.forName("red");
+        assertSame(red, stylesheet.symbolTable().getSymbol("hex"));
+        assertSame(red, stylesheet.symbolTable().getSymbol("short"));
+        assertSame(red, stylesheet.symbolTable().getSymbol("rgb"));
+        assertSame(red, stylesheet.symbolTable().getSymbol("rgba"));
+        assertEquals("#ff0001", stylesheet.symbolTable().getSymbol("other").toString());
+    }
 }
@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 public class FuncExtensionTest {
@@ -21,10 +22,10 @@ public class FuncExtensionTest {
         Parser parser = new Parser(tokenizer);
         parser.parse();
 
-        assertTrue(Color.hasFunc("nothing1"));
-        assertTrue(Color.hasFunc("nothing2"));
-        assertTrue(Color.hasFunc("nothing3"));
-        assertFalse(Color.hasFunc("nothing4"));
+        assertTrue(parser.functions().hasFunc(Color.class, "nothing1"));
+        assertTrue(parser.functions().hasFunc(Color.class, "nothing2"));
+        assertTrue(parser.functions().hasFunc(Color.class, "nothing3"));
+        assertFalse(parser.functions().hasFunc(Color.class, "nothing4"));
     }
 
     @Test
@@ -35,7 +36,7 @@ public class FuncExtensionTest {
         Parser parser = new Parser(tokenizer);
         MiroStylesheet stylesheet = parser.parse();
 
-        assertTrue(Color.hasFunc("removeBlue"));
+        assertTrue(parser.functions().hasFunc(Color.class, "removeBlue"));
 
         assertTrue(stylesheet.symbolTable().hasSymbol("co"));
         assertTrue(stylesheet.symbolTable().hasSymbol("newco"));
@@ -43,4 +44,45 @@ public class FuncExtensionTest {
         assertEquals("#454545", stylesheet.symbolTable().getSymbol("co").toString());
         assertEquals("#454500", stylesheet.symbolTable().getSymbol("newco").toString());
     }
+
+    @Test
+    public void funcExtensionParsedOnce () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("@Color\n    func removeBlue():\n        $this = $this.setBlue(0)\n$a = #454545.removeBlue()\n$b = #ffffff.removeBlue()");
+        tokenizer.tokenize();
+
+        Parser parser = new Parser(tokenizer);
+        MiroStylesheet stylesheet = parser.parse();
+
+        assertNotNull(parser.functions().getFunc(Color.class, "removeBlue").getTemplate());
+        assertEquals("#454500", stylesheet.symbolTable().getSymbol("a").toString());
+        assertEquals("yellow", stylesheet.symbolTable().getSymbol("b").toString());
+    }
+
+    @Test
+    public void funcExtensionWithParameter () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("@Color\n    func withBlue(blue = 0):\n        $this = $this.setBlue($blue)\n$co = #454545\n$a = $co.withBlue()\n$b = $co.withBlue(255)");
+        tokenizer.tokenize();
+
+        Parser parser = new Parser(tokenizer);
+        MiroStylesheet stylesheet = parser.parse();
+
+        assertEquals("#454500", stylesheet.symbolTable().getSymbol("a").toString());
+        assertEquals("#4545ff", stylesheet.symbolTable().getSymbol("b").toString());
+    }
+
+    @Test
+    public void funcExtensionIsolated () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("@Color\n    func isolated():\n        $this = $this");
+        tokenizer.tokenize();
+        Parser parser = new Parser(tokenizer);
+        parser.parse();
+
+        Tokenizer otherTokenizer = new Tokenizer("$co = #454545");
+        otherTokenizer.tokenize();
+        Parser otherParser = new Parser(otherTokenizer);
+        otherParser.parse();
+
+        assertTrue(parser.functions().hasFunc(Color.class, "isolated"));
+        assertFalse(otherParser.functions().hasFunc(Color.class, "isolated"));
+    }
 }
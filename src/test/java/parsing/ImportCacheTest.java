@@ -0,0 +1,76 @@
+package parsing;
+
+import com.sirweb.miro.MiroCompiler;
+import com.sirweb.miro.exceptions.MiroException;
+import com.sirweb.miro.parsing.ImportCache;
+import com.sirweb.miro.parsing.template.Template;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static util.TestFiles.write;
+
+public class ImportCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parseOnce () throws IOException, MiroException {
+        File partial = write(folder.newFile("_vars.miro"), "$size = 5px\n");
+        ImportCache cache = new ImportCache();
+
+        Template template = cache.get(partial.getAbsolutePath());
+        assertSame(template, cache.get(partial.getAbsolutePath()));
+        assertSame(template, cache.get(partial.getParent() + "/./" + partial.getName()));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void parseAgainWhenChanged () throws IOException, MiroException {
+        File partial = write(folder.newFile("_vars.miro"), "$size = 5px\n");
+        ImportCache cache = new ImportCache();
+
+        Template template = cache.get(partial.getAbsolutePath());
+        write(partial, "$size = 10px\n");
+        assertNotSame(template, cache.get(partial.getAbsolutePath()));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed () throws IOException, MiroException {
+        File a = write(folder.newFile("a.miro"), "$a = 1\n");
+        File b = write(folder.newFile("b.miro"), "$b = 1\n");
+        File c = write(folder.newFile("c.miro"), "$c = 1\n");
+        ImportCache cache = new ImportCache(2);
+
+        Template templateA = cache.get(a.getAbsolutePath());
+        cache.get(b.getAbsolutePath());
+        cache.get(a.getAbsolutePath());
+        cache.get(c.getAbsolutePath());
+
+        assertEquals(2, cache.size());
+        assertSame(templateA, cache.get(a.getAbsolutePath()));
+    }
+
+    @Test
+    public void shareBetweenCompilations () throws Exception {
+        File partial = write(folder.newFile("_mixins.miro"), "$pad(x)\n    padding $x\n");
+        List<File> files = new ArrayList<>();
+        for (int i = 1; i <= 3; i++)
+            files.add(write(folder.newFile("entry" + i + ".miro"), "@import '" + partial.getAbsolutePath() + "'\ndiv\n    $pad(" + i + "px)\n"));
+
+        MiroCompiler compiler = new MiroCompiler();
+        Map<File, MiroCompiler.Result> results = compiler.compileAll(files);
+
+        assertEquals(1, compiler.getImportCache().size());
+        for (int i = 1; i <= 3; i++)
+            assertEquals("div {\n    padding: " + i + "px;\n}\n\n", results.get(files.get(i - 1)).getCss());
+    }
+}
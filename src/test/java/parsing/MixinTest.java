@@ -281,4 +281,57 @@ public class MixinTest {
         Parser parser = new Parser(tokenizer);
         MiroStylesheet stylesheet = parser.parse();
     }
+
+    @Test
+    public void callMixinTwice () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("$mix(x)\n    padding $x\ndiv\n    $mix(5px)\np\n    $mix(10px)");
+        tokenizer.tokenize();
+        Parser parser = new Parser(tokenizer);
+        MiroStylesheet stylesheet = parser.parse();
+
+        assertNotNull(stylesheet.symbolTable().getMixin("mix").getTemplate());
+        String values = "";
+        for (Block block : stylesheet.getBlocks())
+            for (Statement statement : block.getStatements())
+                values += block.getHeader() + ":" + statement.getValue() + ";";
+        assertEquals("div:5px;p:10px;", values);
+    }
+
+    @Test
+    public void declareMixinWithUnknownVariable () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("$mix()\n    padding $unknown\ndiv\n    color red");
+        tokenizer.tokenize();
+        Parser parser = new Parser(tokenizer);
+        MiroStylesheet stylesheet = parser.parse();
+
+        assertTrue(stylesheet.symbolTable().hasMixin("mix"));
+    }
+
+    @Test
+    public void callMixinFromMixin () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("$size = 5px\n$inner(x)\n    padding $x $size\n$outer(x)\n    $inner($x)\ndiv\n    $outer(10px)");
+        tokenizer.tokenize();
+        Parser parser = new Parser(tokenizer);
+        MiroStylesheet stylesheet = parser.parse();
+
+        String values = "";
+        for (Block block : stylesheet.getBlocks())
+            for (Statement statement : block.getStatements())
+                values += block.getHeader() + ":" + statement.getValue() + ";";
+        assertEquals("div:10px 5px;", values);
+    }
+
+    @Test
+    public void redefineMixin () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("$a()\n    color red\n$b()\n    color blue\n$a(x)\n    color $x");
+        tokenizer.tokenize();
+        Parser parser = new Parser(tokenizer);
+        MiroStylesheet stylesheet = parser.parse();
+
+        String names = "";
+        for (MiroMixin mixin : stylesheet.symbolTable().getMixins())
+            names += mixin.getName();
+        assertEquals("ba", names);
+        assertTrue(stylesheet.symbolTable().getMixin("a").hasParameter("x"));
+    }
 }
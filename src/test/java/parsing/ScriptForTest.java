@@ -188,4 +188,20 @@ public class ScriptForTest {
         Parser parser = new Parser(tokenizer);
         parser.parse();
     }
+
+    @Test
+    public void nestedForInMixin () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("$mix(size)\n    for i to 3:\n        .col-${$i}\n            width $size * $i\ndiv\n    $mix(10px)");
+        tokenizer.tokenize();
+        Parser parser = new Parser(tokenizer);
+        MiroStylesheet stylesheet = parser.parse();
+
+        String result = "";
+        for (Block block : stylesheet.getBlocks())
+            for (Block column : block.getBlocks())
+                for (Statement statement : column.getStatements())
+                    result += column.getHeader() + ":" + statement.getValue() + ";";
+
+        assertEquals(".col-0:0px;.col-1:10px;.col-2:20px;", result);
+    }
 }
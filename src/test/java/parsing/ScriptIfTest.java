@@ -1,13 +1,19 @@
 package parsing;
 
+import com.sirweb.miro.Miro;
 import com.sirweb.miro.ast.Block;
 import com.sirweb.miro.ast.Statement;
 import com.sirweb.miro.ast.miro.MiroStylesheet;
 import com.sirweb.miro.exceptions.MiroException;
 import com.sirweb.miro.lexer.Tokenizer;
 import com.sirweb.miro.parsing.Parser;
+import com.sirweb.miro.parsing.template.IfNode;
+import com.sirweb.miro.parsing.template.Node;
+import com.sirweb.miro.parsing.template.Template;
 import org.junit.Test;
 
+import java.io.IOException;
+
 import static org.junit.Assert.assertEquals;
 
 public class ScriptIfTest {
@@ -41,4 +47,41 @@ public class ScriptIfTest {
             assertEquals(2, i);
         }
     }
+
+    @Test
+    public void skipBranchNeverTaken () throws MiroException, IOException {
+        // The branch that is never taken does not parse, it must be skipped without being parsed
+        String css = new Miro("div\n    if 2 > 3:\n        color red\n        $x = )\n        span\n            color blue\n    else:\n        color green\n    padding 5px").toCss();
+
+        assertEquals("div {\n    color: green;\n    padding: 5px;\n}\n\n", css);
+    }
+
+    @Test
+    public void constantConditionLeavesNoIfNode () throws MiroException {
+        Tokenizer tokenizer = new Tokenizer("$a = 1\nif 2 > 3:\n    $a = 2\nelse:\n    $a = 3\nif $a > 2:\n    $b = 1\n");
+        tokenizer.tokenize();
+
+        Template template = new Parser(tokenizer).compile();
+
+        // Only the if with the variable condition is left
+        assertEquals(1, countIfNodes(template));
+    }
+
+    private int countIfNodes (Template template) {
+        int count = 0;
+        for (Node node : template.getNodes()) {
+            if (node instanceof IfNode)
+                count++;
+            else if (node instanceof Template)
+                count += countIfNodes((Template) node);
+        }
+        return count;
+    }
+
+    @Test
+    public void variableCondition () throws MiroException, IOException {
+        String css = new Miro("$size = 5\ndiv\n    if $size > 3:\n        color red\n    else:\n        color green").toCss();
+
+        assertEquals("div {\n    color: red;\n}\n\n", css);
+    }
 }
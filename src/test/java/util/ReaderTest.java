@@ -0,0 +1,53 @@
+package util;
+
+import com.sirweb.miro.util.Reader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class ReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write (String name, byte[] content) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    @Test
+    public void normalizeLineBreaks () throws IOException {
+        File file = write("style.miro", "\uFEFFdiv\r\n    color red\r    content '\u00e4'".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("div\n    color red\n    content '\u00e4'\n", new Reader(file.getPath()).read().toString());
+    }
+
+    @Test
+    public void readEmptyFile () throws IOException {
+        File file = write("empty.miro", new byte[0]);
+
+        assertEquals(0, new Reader(file.getPath()).read().length());
+    }
+
+    @Test
+    public void readLargeFile () throws IOException {
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 2 * 1024 * 1024)
+            content.append("div.item\n    margin 3px\n");
+        File file = write("large.miro", content.toString().getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(content.toString(), new Reader(file.getPath()).read().toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void missingFile () throws IOException {
+        new Reader(new File(folder.getRoot(), "missing.miro").getPath());
+    }
+}
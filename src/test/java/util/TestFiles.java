@@ -0,0 +1,19 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Writes test sources as UTF-8, the charset the compiler reads them with
+ */
+public class TestFiles {
+
+    private TestFiles () {}
+
+    public static File write (File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}